@@ -0,0 +1,75 @@
+package simulator.physical;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Thermal loops on the widest SIMD registers of the host. Sums are
+ * accumulated per lane and reduced at the end, so they can differ from the
+ * scalar ones in the last bits. Kept out of src so the default build does
+ * not need the incubator module: compile it together with src with
+ * --add-modules jdk.incubator.vector, and pass the same flag to java for it
+ * to be picked at run time.
+ */
+public class VectorThermalKernel extends ThermalKernel {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    public String getName() {
+        return "vector, " + SPECIES.length() + " lanes";
+    }
+
+    @Override
+    public void multiply(double[] values, int m, double[] power, double[] temperature) {
+        int bound = SPECIES.loopBound(m);
+        for (int i = 0, row = 0; i < m; i++, row += m) {
+            DoubleVector acc = DoubleVector.zero(SPECIES);
+            int j = 0;
+            for (; j < bound; j += SPECIES.length()) {
+                DoubleVector d = DoubleVector.fromArray(SPECIES, values, row + j);
+                acc = d.fma(DoubleVector.fromArray(SPECIES, power, j), acc);
+            }
+            double sum = acc.reduceLanes(VectorOperators.ADD);
+            for (; j < m; j++) {
+                sum = sum + values[row + j] * power[j];
+            }
+            temperature[i] = sum;
+        }
+    }
+
+    @Override
+    public double max(double[] values, int n) {
+        int bound = SPECIES.loopBound(n);
+        double max = values[0];
+        if (bound > 0) {
+            DoubleVector acc = DoubleVector.fromArray(SPECIES, values, 0);
+            for (int i = SPECIES.length(); i < bound; i += SPECIES.length()) {
+                acc = acc.max(DoubleVector.fromArray(SPECIES, values, i));
+            }
+            max = acc.reduceLanes(VectorOperators.MAX);
+        }
+        for (int i = bound; i < n; i++) {
+            if (max < values[i]) {
+                max = values[i];
+            }
+        }
+        return max;
+    }
+
+    @Override
+    public double sum(double[] values, int from, int to) {
+        int bound = from + SPECIES.loopBound(to - from);
+        DoubleVector acc = DoubleVector.zero(SPECIES);
+        int i = from;
+        for (; i < bound; i += SPECIES.length()) {
+            acc = acc.add(DoubleVector.fromArray(SPECIES, values, i));
+        }
+        double sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < to; i++) {
+            sum = sum + values[i];
+        }
+        return sum;
+    }
+}
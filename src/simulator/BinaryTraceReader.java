@@ -0,0 +1,218 @@
+package simulator;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.logging.Logger;
+
+/**
+ * Reads a workload log written by TraceConverter: a 16 byte header (magic,
+ * version, kind code) and then fixed width little-endian records, read
+ * straight from the memory mapped file.
+ */
+public class BinaryTraceReader implements TraceSource {
+
+    private static final Logger LOGGER = Logger.getLogger(BinaryTraceReader.class.getName());
+
+    static final int MAGIC = 0x54434441; // "ADCT"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    // bytes mapped at most at once, so logs over 2 GB can be read
+    private static final long SEGMENT_SIZE = 1L << 30;
+
+    /**
+     * The kinds of records, with the code the header stores for them and the
+     * type of each of their fields. Codes must not change once files are
+     * written with them.
+     */
+    public enum Kind {
+        // enterprise and interactive logs: time, number of requests
+        JOBS(0, true, false),
+        // HPC logs: time, required time, utilization, nodes, deadline
+        BATCH_JOBS(1, false, false, false, true, true);
+
+        private final int code;
+        private final boolean[] intFields;
+        private final int[] offsets;
+        private final int recordSize;
+
+        private Kind(int code, boolean... intFields) {
+            this.code = code;
+            this.intFields = intFields;
+            offsets = new int[intFields.length];
+            int size = 0;
+            for (int i = 0; i < intFields.length; i++) {
+                offsets[i] = size;
+                size += intFields[i] ? 4 : 8;
+            }
+            recordSize = size;
+        }
+
+        public int getCode() {
+            return code;
+        }
+
+        public int getFieldCount() {
+            return intFields.length;
+        }
+
+        public boolean isIntField(int field) {
+            return intFields[field];
+        }
+
+        public int getOffset(int field) {
+            return offsets[field];
+        }
+
+        public int getRecordSize() {
+            return recordSize;
+        }
+    }
+
+    private final Kind kind;
+    private final RandomAccessFile file;
+    private final MappedByteBuffer[] segments;
+    private final int recordsPerSegment;
+    private final long records;
+    private long record = -1;
+    // the current record is in segments[segment] at base
+    private int segment;
+    private int base;
+
+    public BinaryTraceReader(File binaryFile, Kind kind) throws IOException {
+        this.kind = kind;
+        file = new RandomAccessFile(binaryFile, "r");
+        try {
+            FileChannel channel = file.getChannel();
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                throw new IOException(binaryFile + " is not a binary trace");
+            }
+            if (header.getInt(8) != kind.getCode()) {
+                throw new IOException(binaryFile + " does not hold " + kind + " records");
+            }
+            records = (channel.size() - HEADER_SIZE) / kind.getRecordSize();
+            recordsPerSegment = (int) (SEGMENT_SIZE / kind.getRecordSize());
+            segments = new MappedByteBuffer[(int) ((records + recordsPerSegment - 1) / recordsPerSegment)];
+            for (int i = 0; i < segments.length; i++) {
+                long first = (long) i * recordsPerSegment;
+                long count = Math.min(recordsPerSegment, records - first);
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + first * kind.getRecordSize(),
+                        count * kind.getRecordSize());
+                segments[i].order(ByteOrder.LITTLE_ENDIAN);
+            }
+        } catch (IOException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * The binary sibling of a text log: the same name with a .bin extension.
+     */
+    public static File binarySibling(File textFile) {
+        String name = textFile.getName();
+        int dot = name.lastIndexOf('.');
+        return new File(textFile.getParentFile(), (dot > 0 ? name.substring(0, dot) : name) + ".bin");
+    }
+
+    /**
+     * Opens the log in textFile, through its binary sibling if there is one
+     * that is not older than the text.
+     */
+    public static TraceSource open(File textFile, Kind kind) throws IOException {
+        File binaryFile = binarySibling(textFile);
+        if (isCurrent(binaryFile, textFile)) {
+            return new BinaryTraceReader(binaryFile, kind);
+        }
+        return new TraceReader(new FileInputStream(textFile));
+    }
+
+    /**
+     * Whether binaryFile is there and was not written before textFile last
+     * changed. An older binary file is left out with a warning, since the text
+     * may have changed since it was converted.
+     */
+    public static boolean isCurrent(File binaryFile, File textFile) {
+        if (!binaryFile.isFile()) {
+            return false;
+        }
+        if (textFile.isFile() && binaryFile.lastModified() < textFile.lastModified()) {
+            LOGGER.warning(binaryFile + " is older than " + textFile + ", reading the text");
+            return false;
+        }
+        return true;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public long getRecordCount() {
+        return records;
+    }
+
+    @Override
+    public boolean nextRecord() {
+        if (record + 1 >= records) {
+            record = records;
+            return false;
+        }
+        record++;
+        segment = (int) (record / recordsPerSegment);
+        base = (int) (record % recordsPerSegment) * kind.getRecordSize();
+        return true;
+    }
+
+    @Override
+    public int fieldCount() {
+        return record >= 0 && record < records ? kind.getFieldCount() : 0;
+    }
+
+    @Override
+    public int getInt(int field) {
+        checkField(field);
+        if (kind.isIntField(field)) {
+            return segments[segment].getInt(base + kind.getOffset(field));
+        }
+        double value = segments[segment].getDouble(base + kind.getOffset(field));
+        if (value != (int) value) {
+            throw new NumberFormatException("For input: " + value);
+        }
+        return (int) value;
+    }
+
+    @Override
+    public double getDouble(int field) {
+        checkField(field);
+        if (kind.isIntField(field)) {
+            return segments[segment].getInt(base + kind.getOffset(field));
+        }
+        return segments[segment].getDouble(base + kind.getOffset(field));
+    }
+
+    @Override
+    public String getString(int field) {
+        checkField(field);
+        if (kind.isIntField(field)) {
+            return Integer.toString(getInt(field));
+        }
+        return Double.toString(getDouble(field));
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+    private void checkField(int field) {
+        if (field < 0 || field >= fieldCount()) {
+            throw new IndexOutOfBoundsException("Field: " + field + ", fields: " + fieldCount());
+        }
+    }
+}
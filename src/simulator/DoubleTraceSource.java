@@ -0,0 +1,39 @@
+package simulator;
+
+/**
+ * A TraceSource whose records are already parsed into doubles. Subclasses
+ * give the field count and the values of the current record; the bounds
+ * checks and the int and string forms of a field are the same for all of
+ * them.
+ */
+public abstract class DoubleTraceSource implements TraceSource {
+
+    /**
+     * Field of the current record, field already checked against
+     * fieldCount().
+     */
+    protected abstract double value(int field);
+
+    @Override
+    public int getInt(int field) {
+        double value = getDouble(field);
+        if (value != (int) value) {
+            throw new NumberFormatException("For input: " + value);
+        }
+        return (int) value;
+    }
+
+    @Override
+    public double getDouble(int field) {
+        if (field < 0 || field >= fieldCount()) {
+            throw new IndexOutOfBoundsException("Field: " + field + ", fields: " + fieldCount());
+        }
+        return value(field);
+    }
+
+    @Override
+    public String getString(int field) {
+        double value = getDouble(field);
+        return value == (int) value ? Integer.toString((int) value) : Double.toString(value);
+    }
+}
@@ -4,7 +4,8 @@ public class Environment {
     private int localTime = 1;
     private int numberOfMessagesFromDataCenterToSystem = 0;
     private int numberOfMessagesFromSystemToNodes = 0;
-    private final int EPOCH_APP = 60;
+    // ticks between two runs of the application AMs
+    private int epochApp = 60;
     
     public int getCurrentLocalTime() {
         return localTime;
@@ -14,6 +15,10 @@ public class Environment {
         localTime++;
     }
 
+    protected void updateCurrentLocalTime(int ticks) {
+        localTime += ticks;
+    }
+
     public void updateNumberOfMessagesFromDataCenterToSystem() {
         numberOfMessagesFromDataCenterToSystem++;
     }
@@ -30,7 +35,22 @@ public class Environment {
         return numberOfMessagesFromSystemToNodes;
     }
 
+    public int getEpochApp() {
+        return epochApp;
+    }
+
+    public void setEpochApp(int epochApp) {
+        this.epochApp = epochApp;
+    }
+
     public boolean localTimeByEpoch() {
-        return localTime % EPOCH_APP != 0;
+        return localTime % epochApp != 0;
+    }
+
+    /**
+     * First tick after the current one at which the application AMs run.
+     */
+    public int nextEpochTime() {
+        return (localTime / epochApp + 1) * epochApp;
     }
 }
\ No newline at end of file
@@ -0,0 +1,155 @@
+package simulator;
+
+import java.io.IOException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Reads a numeric workload log ahead of the simulation. A producer thread
+ * parses the records of another source into a bounded single producer,
+ * single consumer ring of doubles; nextRecord() only pops from the ring, so
+ * reading and parsing the log overlap with the simulation. Records come out
+ * exactly as the source would give them.
+ */
+public class PrefetchingTraceSource extends DoubleTraceSource {
+
+    static final int DEFAULT_CAPACITY = 4096;
+    // longest wait before looking at the ring again, in case a wake up is
+    // missed
+    private static final long PARK_NANOS = 1000000L;
+
+    private final TraceSource source;
+    private final int fields;
+    private final int capacity;
+    private final double[] values;
+    private final int[] counts;
+    // records taken by the consumer and records put by the producer
+    private volatile long head = 0;
+    private volatile long tail = 0;
+    private volatile boolean finished = false;
+    private volatile boolean closed = false;
+    // what stopped the producer before the end of the log
+    private volatile Exception failure;
+    private volatile Thread consumer;
+    private final Thread producer;
+    // slot of the current record, -1 before the first one
+    private int current = -1;
+    private int currentCount = 0;
+
+    /**
+     * Starts reading source, records of up to fields fields, keeping at most
+     * capacity records ahead.
+     */
+    public PrefetchingTraceSource(TraceSource source, int fields, int capacity) {
+        this.source = source;
+        this.fields = fields;
+        this.capacity = capacity;
+        values = new double[capacity * fields];
+        counts = new int[capacity];
+        producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                produce();
+            }
+        }, "trace-prefetch");
+        producer.setDaemon(true);
+        producer.start();
+    }
+
+    /**
+     * source read ahead by a producer thread, or source itself when it is a
+     * binary log, which has nothing to parse.
+     */
+    public static TraceSource prefetch(TraceSource source, int fields) {
+        if (source instanceof BinaryTraceReader) {
+            return source;
+        }
+        return new PrefetchingTraceSource(source, fields, DEFAULT_CAPACITY);
+    }
+
+    private void produce() {
+        try {
+            while (!closed && source.nextRecord()) {
+                long t = tail;
+                while (t - head == capacity) {
+                    if (closed) {
+                        return;
+                    }
+                    LockSupport.parkNanos(this, PARK_NANOS);
+                }
+                int slot = (int) (t % capacity);
+                int count = Math.min(source.fieldCount(), fields);
+                for (int field = 0; field < count; field++) {
+                    values[slot * fields + field] = source.getDouble(field);
+                }
+                counts[slot] = count;
+                tail = t + 1;
+                wake(consumer);
+            }
+        } catch (IOException e) {
+            failure = e;
+        } catch (RuntimeException e) {
+            failure = e;
+        } finally {
+            try {
+                source.close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+            // the consumer looks at failure once it sees finished
+            finished = true;
+            wake(consumer);
+        }
+    }
+
+    @Override
+    public boolean nextRecord() throws IOException {
+        if (current >= 0) {
+            // the slot of the record given last time goes back to the producer
+            head = head + 1;
+            wake(producer);
+            current = -1;
+        }
+        long h = head;
+        while (h == tail) {
+            if (finished && h == tail) {
+                if (failure instanceof IOException) {
+                    throw (IOException) failure;
+                }
+                if (failure != null) {
+                    throw (RuntimeException) failure;
+                }
+                currentCount = 0;
+                return false;
+            }
+            consumer = Thread.currentThread();
+            LockSupport.parkNanos(this, PARK_NANOS);
+        }
+        current = (int) (h % capacity);
+        currentCount = counts[current];
+        return true;
+    }
+
+    @Override
+    public int fieldCount() {
+        return current < 0 ? 0 : currentCount;
+    }
+
+    @Override
+    protected double value(int field) {
+        return values[current * fields + field];
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        wake(producer);
+    }
+
+    private static void wake(Thread thread) {
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package simulator;
+
+import java.util.Arrays;
+
+/**
+ * Served requests counted by response time. Every response time below the
+ * number of buckets has a bucket of its own, the last bucket takes the rest,
+ * and each bucket holds the number of requests, not of records. Recording is
+ * O(1), threshold and percentile queries walk the buckets, and reset() starts
+ * a new epoch in the same array.
+ */
+public class ResponseTimeHistogram {
+
+    public static final int DEFAULT_BUCKETS = 1024;
+
+    private final double[] requests;
+    private double totalRequests = 0;
+
+    public ResponseTimeHistogram() {
+        this(DEFAULT_BUCKETS);
+    }
+
+    public ResponseTimeHistogram(int buckets) {
+        if (buckets < 2) {
+            throw new IllegalArgumentException("Buckets: " + buckets);
+        }
+        requests = new double[buckets];
+    }
+
+    /**
+     * Counts numberOfRequests served after responseTime. Response times below
+     * zero count as zero.
+     */
+    public void record(int responseTime, double numberOfRequests) {
+        requests[bucketOf(responseTime)] += numberOfRequests;
+        totalRequests += numberOfRequests;
+    }
+
+    public double getTotalRequests() {
+        return totalRequests;
+    }
+
+    public int getBuckets() {
+        return requests.length;
+    }
+
+    /**
+     * Requests whose response time was over threshold. Exact for thresholds
+     * below the last bucket; at or above it every request of the last bucket
+     * counts.
+     */
+    public double requestsOver(int threshold) {
+        double over = 0;
+        int first = threshold < 0 ? 0 : Math.min(threshold, requests.length - 2) + 1;
+        for (int bucket = first; bucket < requests.length; bucket++) {
+            over += requests[bucket];
+        }
+        return over;
+    }
+
+    /**
+     * Lowest response time that percent of the requests got, -1 if nothing
+     * was recorded. Times in the last bucket come back as its lower end.
+     */
+    public int percentile(double percent) {
+        if (totalRequests <= 0) {
+            return -1;
+        }
+        double wanted = totalRequests * percent / 100.0;
+        double sum = 0;
+        for (int bucket = 0; bucket < requests.length; bucket++) {
+            sum += requests[bucket];
+            if (sum >= wanted) {
+                return bucket;
+            }
+        }
+        return requests.length - 1;
+    }
+
+    public void reset() {
+        Arrays.fill(requests, 0);
+        totalRequests = 0;
+    }
+
+    private int bucketOf(int responseTime) {
+        if (responseTime < 0) {
+            return 0;
+        }
+        return Math.min(responseTime, requests.length - 1);
+    }
+}
@@ -27,8 +27,12 @@ public class SLAViolationLogger {
     }
 
     public void logHPCViolation(String name, Violation slaViolation) {
+        logHPCViolation(name, slaViolation, environment.getCurrentLocalTime());
+    }
+
+    public void logHPCViolation(String name, Violation slaViolation, int time) {
         try {
-            SLALogH.write(name + "\t" + environment.getCurrentLocalTime() + "\t" + slaViolation + "\n");
+            SLALogH.write(name + "\t" + time + "\t" + slaViolation + "\n");
         } catch (IOException ex) {
             LOGGER.severe(ex.getMessage());
         }
@@ -20,9 +20,18 @@ public class Simulator {
         while (!areSystemsDone()) {
             // LOGGER.info("--"+Main.localTime);
             allSystemRunACycle();
-            allSystemCalculatePower();
-            datacenter.calculatePower();
-            environment.updateCurrentLocalTime();
+            int ticks = 1;
+            if (timeAdvance == TimeAdvanceEnum.NextEvent) {
+                // the ticks in between only let the running jobs progress; a
+                // step ends at the latest on the tick a stage is due
+                int nextEventTime = Math.min(systems.nextEventTime(),
+                        stages.nextDueTime(environment.getCurrentLocalTime()));
+                systems.skipQuietTicksUntil(nextEventTime);
+                ticks = nextEventTime - environment.getCurrentLocalTime();
+                skippedTicks += ticks - 1;
+            }
+            stages.runStep(environment.getCurrentLocalTime(), ticks);
+            environment.updateCurrentLocalTime(ticks);
             // ////Data Center Level AM MAPE Loop
             // if(Main.localTime%1==0)
             // {
@@ -32,6 +41,7 @@ public class Simulator {
             // }
             // ///////////////
         }
+        stages.finish(environment.getCurrentLocalTime());
     }
 
     public Simulator() {
@@ -43,6 +53,7 @@ public class Simulator {
 
         datacenter = dataCenterBuilder.getDataCenter();
         systems = dataCenterBuilder.getSystems();
+        registerStages(dataCenterBuilder.getThermalPeriod());
 
         // set the overal policy here
         // Data Center is green!
@@ -62,6 +73,25 @@ public class Simulator {
 
     }
 
+    // a thermal update closes the interval the power stage accounted, so it
+    // runs after it in the same step
+    private void registerStages(int thermalPeriod) {
+        datacenter.setThermalPeriod(thermalPeriod);
+        stages.register("power", 1, new StageScheduler.Stage() {
+            @Override
+            public void run(int time, int ticks) {
+                systems.calculatePower(ticks);
+                datacenter.accountPower(ticks);
+            }
+        });
+        stages.register("thermal", thermalPeriod, new StageScheduler.Stage() {
+            @Override
+            public void run(int time, int ticks) {
+                datacenter.updateThermal(time, ticks);
+            }
+        });
+    }
+
     private Environment environment = new Environment();
     // private int epochSys = 120, epochSideApp = 120;
     // private List<ResponseTime> responseArray;
@@ -69,6 +99,9 @@ public class Simulator {
     private DataCenter datacenter;
     private SLAViolationLogger slaViolationLogger = new SLAViolationLogger(environment);
     private Systems systems;
+    private TimeAdvanceEnum timeAdvance = TimeAdvanceEnum.NextEvent;
+    private StageScheduler stages = new StageScheduler();
+    private int skippedTicks = 0;
 
     protected double getTotalPowerConsumption() {
         return datacenter.getTotalPowerConsumption();
@@ -87,6 +120,30 @@ public class Simulator {
         Green, SLA
     };
 
+    /**
+     * PerTick runs every system at every tick. NextEvent jumps over the ticks
+     * in which nothing but job progress happens and gives the same results.
+     */
+    public enum TimeAdvanceEnum {
+
+        PerTick, NextEvent
+    };
+
+    public TimeAdvanceEnum getTimeAdvance() {
+        return timeAdvance;
+    }
+
+    public void setTimeAdvance(TimeAdvanceEnum timeAdvance) {
+        this.timeAdvance = timeAdvance;
+    }
+
+    /**
+     * Number of ticks the NextEvent time advance jumped over.
+     */
+    public int getSkippedTicks() {
+        return skippedTicks;
+    }
+
     public boolean anySysetm() {
         return systems.allJobsDone();
     }
@@ -125,7 +182,11 @@ public class Simulator {
     }
 
     public SimulationResults execute() throws IOException {
-        initialize("configs/DC_Logic.xml");
+        return execute("configs/DC_Logic.xml");
+    }
+
+    public SimulationResults execute(String config) throws IOException {
+        initialize(config);
         LOGGER.info("Systems start running");
         run();
         csFinalize();
@@ -135,6 +196,7 @@ public class Simulator {
 
     void csFinalize() {
         systems.logTotalResponseTimeComputeSystem();
+        systems.closeTraces();
         try {
             datacenter.shutDownDC();
             slaViolationLogger.finish();
@@ -209,4 +271,8 @@ public class Simulator {
     public Systems getSystems() {
         return systems;
     }
+
+    public StageScheduler getStages() {
+        return stages;
+    }
 }
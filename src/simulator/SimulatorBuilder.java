@@ -33,6 +33,8 @@ public class SimulatorBuilder {
     private Environment environment;
     private Systems systems;
     private SLAViolationLogger slaViolationLogger;
+    // ticks between two evaluations of the thermal model
+    private int thermalPeriod = 1;
 
     public SimulatorBuilder(Environment environment, SLAViolationLogger slaViolationLogger) {
         this.environment = environment;
@@ -59,6 +61,14 @@ public class SimulatorBuilder {
                         DataCenterPOD dataCenterPOD = dataCenterBuilder.getDataCenterPOD();
                         dataCenter = new DataCenter(dataCenterPOD, environment, systems);
                     }
+                    if (childNodes.item(i).getNodeName().equalsIgnoreCase("ThermalPeriod")) {
+                        thermalPeriod = Integer
+                                .parseInt(childNodes.item(i).getChildNodes().item(0).getNodeValue().trim());
+                    }
+                    if (childNodes.item(i).getNodeName().equalsIgnoreCase("AMEpoch")) {
+                        environment.setEpochApp(
+                                Integer.parseInt(childNodes.item(i).getChildNodes().item(0).getNodeValue().trim()));
+                    }
                     if (childNodes.item(i).getNodeName().equalsIgnoreCase("System")) {
                         NodeList nodiLst = childNodes.item(i).getChildNodes();
                         systemConfig(nodiLst, path);
@@ -132,4 +142,8 @@ public class SimulatorBuilder {
         return systems;
     }
 
+    public int getThermalPeriod() {
+        return thermalPeriod;
+    }
+
 }
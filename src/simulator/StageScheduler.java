@@ -0,0 +1,83 @@
+package simulator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the stages that follow the workload in a simulation step, each at its
+ * own period. A step covers the ticks [time, time + ticks); a stage with
+ * period p is due in a step holding a tick t with t % p == 0, and on the
+ * first step. Due stages run in registration order.
+ */
+public class StageScheduler {
+
+    public interface Stage {
+
+        /**
+         * Called once for a step covering [time, time + ticks).
+         */
+        void run(int time, int ticks) throws IOException;
+    }
+
+    private final List<String> names = new ArrayList<String>();
+    private final List<Integer> periods = new ArrayList<Integer>();
+    private final List<Stage> stages = new ArrayList<Stage>();
+    private boolean started = false;
+
+    public void register(String name, int period, Stage stage) {
+        if (period < 1) {
+            throw new IllegalArgumentException("Stage " + name + " needs a period of at least one tick: " + period);
+        }
+        names.add(name);
+        periods.add(period);
+        stages.add(stage);
+    }
+
+    public void runStep(int time, int ticks) throws IOException {
+        for (int k = 0; k < stages.size(); k++) {
+            if (!started || isDue(periods.get(k), time, ticks)) {
+                stages.get(k).run(time, ticks);
+            }
+        }
+        started = true;
+    }
+
+    /**
+     * Runs every stage for an empty step at time, so the stages with a longer
+     * period get to close what they accumulated since they last ran.
+     */
+    public void finish(int time) throws IOException {
+        for (Stage stage : stages) {
+            stage.run(time, 0);
+        }
+    }
+
+    /**
+     * The earliest end a step starting at now can have without covering a
+     * tick at which a stage with a longer period than one tick is due before
+     * its last tick. Such a stage closes the ticks since it last ran, so a
+     * step running past its due tick would fold the following ticks into the
+     * interval it closes. Integer.MAX_VALUE when no stage bounds the step.
+     */
+    public int nextDueTime(int now) {
+        if (!started) {
+            return now + 1;
+        }
+        int due = Integer.MAX_VALUE;
+        for (int period : periods) {
+            if (period > 1) {
+                due = Math.min(due, Math.floorDiv(now + period - 1, period) * period + 1);
+            }
+        }
+        return due;
+    }
+
+    static boolean isDue(int period, int time, int ticks) {
+        return Math.floorDiv(time + ticks - 1, period) > Math.floorDiv(time - 1, period);
+    }
+
+    public int getPeriod(String name) {
+        return periods.get(names.indexOf(name));
+    }
+}
@@ -0,0 +1,75 @@
+package simulator;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.logging.Logger;
+
+/**
+ * Converts a text workload log to the binary format of BinaryTraceReader.
+ * Written next to the text log, the binary one is picked up instead of it.
+ * Lines with fewer fields than the kind of record has are left out.
+ *
+ * Usage: TraceConverter JOBS|BATCH_JOBS log.txt [log.bin]
+ */
+public class TraceConverter {
+
+    private static final Logger LOGGER = Logger.getLogger(TraceConverter.class.getName());
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: TraceConverter JOBS|BATCH_JOBS log.txt [log.bin]");
+            System.exit(1);
+        }
+        BinaryTraceReader.Kind kind = BinaryTraceReader.Kind.valueOf(args[0].trim().toUpperCase());
+        File textFile = new File(args[1]);
+        File binaryFile = args.length > 2 ? new File(args[2]) : BinaryTraceReader.binarySibling(textFile);
+        long records = convert(textFile, binaryFile, kind);
+        LOGGER.info("Wrote " + records + " records to " + binaryFile);
+    }
+
+    /**
+     * Writes the records of textFile to binaryFile and returns how many there
+     * were.
+     */
+    public static long convert(File textFile, File binaryFile, BinaryTraceReader.Kind kind) throws IOException {
+        TraceReader trace = new TraceReader(new FileInputStream(textFile));
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(binaryFile), 1 << 16);
+        long records = 0;
+        long skipped = 0;
+        try {
+            ByteBuffer record = ByteBuffer.allocate(Math.max(kind.getRecordSize(), BinaryTraceReader.HEADER_SIZE));
+            record.order(ByteOrder.LITTLE_ENDIAN);
+            record.putInt(BinaryTraceReader.MAGIC).putInt(BinaryTraceReader.VERSION).putInt(kind.getCode()).putInt(0);
+            out.write(record.array(), 0, BinaryTraceReader.HEADER_SIZE);
+            while (trace.nextRecord()) {
+                if (trace.fieldCount() < kind.getFieldCount()) {
+                    skipped++;
+                    continue;
+                }
+                record.clear();
+                for (int field = 0; field < kind.getFieldCount(); field++) {
+                    if (kind.isIntField(field)) {
+                        record.putInt(trace.getInt(field));
+                    } else {
+                        record.putDouble(trace.getDouble(field));
+                    }
+                }
+                out.write(record.array(), 0, kind.getRecordSize());
+                records++;
+            }
+        } finally {
+            trace.close();
+            out.close();
+        }
+        if (skipped > 0) {
+            LOGGER.info("Left out " + skipped + " short lines of " + textFile);
+        }
+        return records;
+    }
+}
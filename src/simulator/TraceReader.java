@@ -0,0 +1,196 @@
+package simulator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads a workload log record by record. A record is a line of fields
+ * separated by spaces or tabs. The bytes go through one reusable buffer and
+ * the fields are parsed where they lie in it, so reading a record of numbers
+ * allocates nothing.
+ */
+public class TraceReader implements TraceSource {
+
+    // exact powers of ten, the ones a double can hold without rounding
+    private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+    // largest mantissa a double holds exactly
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    private final InputStream in;
+    private byte[] buffer = new byte[1 << 16];
+    // the bytes read but not consumed yet are buffer[position, limit)
+    private int position = 0;
+    private int limit = 0;
+    private boolean endOfStream = false;
+    // fields of the current record, as offsets in buffer
+    private int[] starts = new int[8];
+    private int[] ends = new int[8];
+    private int fields = 0;
+
+    public TraceReader(InputStream in) {
+        this.in = in;
+    }
+
+    @Override
+    public boolean nextRecord() throws IOException {
+        fields = 0;
+        int scan = position;
+        while (true) {
+            while (scan < limit && buffer[scan] != '\n') {
+                scan++;
+            }
+            if (scan < limit) {
+                split(position, scan);
+                position = scan + 1;
+                return true;
+            }
+            if (endOfStream) {
+                if (position == limit) {
+                    return false;
+                }
+                split(position, limit);
+                position = limit;
+                return true;
+            }
+            int scanned = scan - position;
+            fill();
+            scan = position + scanned;
+        }
+    }
+
+    @Override
+    public int fieldCount() {
+        return fields;
+    }
+
+    @Override
+    public int getInt(int field) {
+        checkField(field);
+        int i = starts[field];
+        int end = ends[field];
+        boolean negative = buffer[i] == '-';
+        if (negative || buffer[i] == '+') {
+            i++;
+        }
+        if (i == end || end - i > 9) {
+            return Integer.parseInt(getString(field));
+        }
+        int value = 0;
+        for (; i < end; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return Integer.parseInt(getString(field));
+            }
+            value = 10 * value + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * The field as Double.parseDouble() would read it. Plain decimals whose
+     * digits fit a double exactly are computed with one correctly rounded
+     * division, anything else goes through Double.parseDouble().
+     */
+    @Override
+    public double getDouble(int field) {
+        checkField(field);
+        int i = starts[field];
+        int end = ends[field];
+        boolean negative = buffer[i] == '-';
+        if (negative || buffer[i] == '+') {
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int decimals = -1;
+        for (; i < end; i++) {
+            byte b = buffer[i];
+            if (b == '.' && decimals < 0) {
+                decimals = 0;
+                continue;
+            }
+            int digit = b - '0';
+            if (digit < 0 || digit > 9 || mantissa >= MAX_EXACT_MANTISSA / 10) {
+                return Double.parseDouble(getString(field));
+            }
+            mantissa = 10 * mantissa + digit;
+            digits++;
+            if (decimals >= 0) {
+                decimals++;
+            }
+        }
+        if (digits == 0 || decimals >= POWERS_OF_TEN.length) {
+            return Double.parseDouble(getString(field));
+        }
+        double value = decimals > 0 ? mantissa / POWERS_OF_TEN[decimals] : mantissa;
+        return negative ? -value : value;
+    }
+
+    @Override
+    public String getString(int field) {
+        checkField(field);
+        return new String(buffer, starts[field], ends[field] - starts[field], StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private void checkField(int field) {
+        if (field < 0 || field >= fields) {
+            throw new IndexOutOfBoundsException("Field: " + field + ", fields: " + fields);
+        }
+    }
+
+    // keeps the unconsumed bytes, making room for more if the buffer is full
+    private void fill() throws IOException {
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            position = 0;
+        }
+        if (limit == buffer.length) {
+            byte[] larger = new byte[2 * buffer.length];
+            System.arraycopy(buffer, 0, larger, 0, limit);
+            buffer = larger;
+        }
+        int read = in.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            endOfStream = true;
+        } else {
+            limit += read;
+        }
+    }
+
+    private void split(int from, int to) {
+        int i = from;
+        while (true) {
+            while (i < to && isSeparator(buffer[i])) {
+                i++;
+            }
+            if (i == to) {
+                return;
+            }
+            if (fields == starts.length) {
+                int[] larger = new int[2 * fields];
+                System.arraycopy(starts, 0, larger, 0, fields);
+                starts = larger;
+                larger = new int[2 * fields];
+                System.arraycopy(ends, 0, larger, 0, fields);
+                ends = larger;
+            }
+            starts[fields] = i;
+            while (i < to && !isSeparator(buffer[i])) {
+                i++;
+            }
+            ends[fields++] = i;
+        }
+    }
+
+    private static boolean isSeparator(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+}
@@ -0,0 +1,23 @@
+package simulator;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * A workload log read record by record; fields are numbered from 0.
+ */
+public interface TraceSource extends Closeable {
+
+    /**
+     * Moves to the next record; false at the end of the log.
+     */
+    public boolean nextRecord() throws IOException;
+
+    public int fieldCount();
+
+    public int getInt(int field);
+
+    public double getDouble(int field);
+
+    public String getString(int field);
+}
@@ -89,15 +89,9 @@ public class ApplicationAM extends GeneralAM {
         app.setSLAviolation(0);
         int percentage = app.getComputeNodeList().get(0).getSLAPercentage();
         int treshold = app.getComputeNodeList().get(0).getTimeTreshold();
-        double tmp = 0;
-        double totalJob = 0;
-        for (int j = 0; j < app.getResponseList().size(); j++) {
-            if (app.getResponseList().get(j).getResponseTime() > treshold) {
-                tmp = app.getResponseList().get(j).getNumberOfJob() + tmp;
-            }
-            totalJob = totalJob + app.getResponseList().get(j).getNumberOfJob();
-        }
-        app.getResponseList().clear();
+        double tmp = app.getResponseTimes().requestsOver(treshold);
+        double totalJob = app.getResponseTimes().getTotalRequests();
+        app.getResponseTimes().reset();
         if ((tmp * 100.0 / totalJob) > (100.0 - percentage)) {
             // SLAviolation:
             // percentage of
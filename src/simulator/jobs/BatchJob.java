@@ -1,5 +1,6 @@
 package simulator.jobs;
 
+import java.util.Arrays;
 import java.util.logging.Logger;
 
 import simulator.Environment;
@@ -13,12 +14,13 @@ public class BatchJob extends Job {
     private double startTime;
     private double exitTime;
     private double deadline;
-    private int isChangedThisTime = 0;
     private double reqTime;
     private double utilization;
     private double[] remain;
     private int numOfNode;
     private int[] listOfServer;
+    // slot of this job in the active or blocked jobs of each of its nodes
+    private int[] slots;
     private Environment environment;
     private DataCenter dataCenter;
 
@@ -72,7 +74,7 @@ public class BatchJob extends Job {
         server.setRespTime(waitTime + server.getResponseTime());
         for (int i = 0; i < getNumOfNode(); i++) {
             server = dataCenter.getServer(getListOfServer()[i]);
-            server.getBlockedBatchList().remove(this);
+            server.getBlockedBatchList().remove(this, i);
         }
 
         return;
@@ -112,14 +114,6 @@ public class BatchJob extends Job {
         this.deadline = deadline;
     }
 
-    public int getIsChangedThisTime() {
-        return isChangedThisTime;
-    }
-
-    public void setIsChangedThisTime(int isChangedThisTime) {
-        this.isChangedThisTime = isChangedThisTime;
-    }
-
     public double getReqTime() {
         return reqTime;
     }
@@ -159,4 +153,19 @@ public class BatchJob extends Job {
     public void setListOfServer(int[] listOfServer) {
         this.listOfServer = listOfServer;
     }
+
+    public int getSlot(int nodeIndex) {
+        if (slots == null || nodeIndex >= slots.length) {
+            return -1;
+        }
+        return slots[nodeIndex];
+    }
+
+    public void setSlot(int nodeIndex, int slot) {
+        if (slots == null || nodeIndex >= slots.length) {
+            int length = Math.max(nodeIndex + 1, getNumOfNode());
+            slots = slots == null ? new int[length] : Arrays.copyOf(slots, length);
+        }
+        slots[nodeIndex] = slot;
+    }
 }
@@ -9,4 +9,15 @@ package simulator.jobs;
  * @author fnorouz
  */
 public class Job {
+
+    // place of the job in the heap of the HeapJobQueue holding it, -1 if none
+    private int queuePosition = -1;
+
+    public int getQueuePosition() {
+        return queuePosition;
+    }
+
+    public void setQueuePosition(int queuePosition) {
+        this.queuePosition = queuePosition;
+    }
 }
@@ -0,0 +1,166 @@
+package simulator.physical;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+
+import simulator.jobs.BatchJob;
+
+/**
+ * The batch jobs of one server. Each job sits in a slot of an array and
+ * remembers that slot for every one of its nodes, so adding and removing a job
+ * are O(1): a removal moves the last job into the freed slot, which means the
+ * jobs do not keep the order they were added in. Each slot also holds the
+ * number of its job in the order of adding, so that order can be rebuilt.
+ */
+public class BatchJobSlots extends AbstractList<BatchJob> {
+
+    private BatchJob[] jobs = new BatchJob[4];
+    // index of this server in each job's list of servers
+    private int[] nodeIndexes = new int[4];
+    // when the job of each slot was added, in jobs added so far
+    private long[] addedAt = new long[4];
+    private int size = 0;
+    private long added = 0;
+    // the orders of the jobs, kept until jobs are added or removed
+    private int orderedModCount = -1;
+    private long[] addedKeys = new long[4];
+    private int[] addedOrder = new int[4];
+    private double[] utilizations = new double[4];
+    private int[] byUtilization = new int[4];
+    private int[] sortBuffer = new int[4];
+
+    /**
+     * Adds job, of which this server is node nodeIndex.
+     */
+    public void add(BatchJob job, int nodeIndex) {
+        if (size == jobs.length) {
+            jobs = Arrays.copyOf(jobs, 2 * size);
+            nodeIndexes = Arrays.copyOf(nodeIndexes, 2 * size);
+            addedAt = Arrays.copyOf(addedAt, 2 * size);
+        }
+        jobs[size] = job;
+        nodeIndexes[size] = nodeIndex;
+        addedAt[size] = added++;
+        job.setSlot(nodeIndex, size);
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public BatchJob get(int slot) {
+        if (slot >= size) {
+            throw new IndexOutOfBoundsException("Slot: " + slot + ", size: " + size);
+        }
+        return jobs[slot];
+    }
+
+    public int getNodeIndex(int slot) {
+        return nodeIndexes[slot];
+    }
+
+    /**
+     * The slots from the job added first to the one added last, in the first
+     * size() entries. The array is reused and only sorted again after jobs
+     * were added or removed, so it must not be changed.
+     */
+    public int[] slotsInAddedOrder() {
+        order();
+        return addedOrder;
+    }
+
+    /**
+     * Places in slotsInAddedOrder(), in the first size() entries, sorted by
+     * the utilization of their jobs; jobs of equal utilization keep the order
+     * they were added in. Reused like slotsInAddedOrder().
+     */
+    public int[] placesByUtilization() {
+        order();
+        return byUtilization;
+    }
+
+    private void order() {
+        if (orderedModCount == modCount) {
+            return;
+        }
+        if (addedOrder.length < jobs.length) {
+            addedKeys = new long[jobs.length];
+            addedOrder = new int[jobs.length];
+            utilizations = new double[jobs.length];
+            byUtilization = new int[jobs.length];
+            sortBuffer = new int[jobs.length];
+        }
+        for (int slot = 0; slot < size; slot++) {
+            addedKeys[slot] = (addedAt[slot] << 32) | slot;
+        }
+        Arrays.sort(addedKeys, 0, size);
+        for (int place = 0; place < size; place++) {
+            addedOrder[place] = (int) addedKeys[place];
+            utilizations[place] = jobs[addedOrder[place]].getUtilization();
+            byUtilization[place] = place;
+        }
+        sortByUtilization(0, size);
+        orderedModCount = modCount;
+    }
+
+    // merge sort of byUtilization[from, to), stable
+    private void sortByUtilization(int from, int to) {
+        if (to - from < 2) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        sortByUtilization(from, middle);
+        sortByUtilization(middle, to);
+        if (utilizations[byUtilization[middle - 1]] <= utilizations[byUtilization[middle]]) {
+            return;
+        }
+        System.arraycopy(byUtilization, from, sortBuffer, from, to - from);
+        int i = from;
+        int j = middle;
+        for (int k = from; k < to; k++) {
+            if (j == to || (i < middle && utilizations[sortBuffer[i]] <= utilizations[sortBuffer[j]])) {
+                byUtilization[k] = sortBuffer[i++];
+            } else {
+                byUtilization[k] = sortBuffer[j++];
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public BatchJob remove(int slot) {
+        BatchJob job = get(slot);
+        size--;
+        if (slot != size) {
+            jobs[slot] = jobs[size];
+            nodeIndexes[slot] = nodeIndexes[size];
+            addedAt[slot] = addedAt[size];
+            jobs[slot].setSlot(nodeIndexes[slot], slot);
+        }
+        jobs[size] = null;
+        modCount++;
+        return job;
+    }
+
+    /**
+     * Removes job, of which this server is node nodeIndex, if it is here.
+     */
+    public boolean remove(BatchJob job, int nodeIndex) {
+        int slot = job.getSlot(nodeIndex);
+        if (slot >= 0 && slot < size && jobs[slot] == job && nodeIndexes[slot] == nodeIndex) {
+            remove(slot);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(jobs, 0, size, null);
+        size = 0;
+        modCount++;
+    }
+}
@@ -2,6 +2,7 @@
 package simulator.physical;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.logging.Logger;
 
@@ -9,7 +10,6 @@ import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
 import simulator.Environment;
-import simulator.ResponseTime;
 import simulator.jobs.BatchJob;
 import simulator.jobs.EnterpriseJob;
 import simulator.jobs.InteractiveJob;
@@ -18,31 +18,54 @@ public class BladeServer {
 
     private static final Logger LOGGER = Logger.getLogger(BladeServer.class.getName());
 
-    private List<ResponseTime> responseList;
-    private List<ResponseTime> responseListWeb;
+    /**
+     * The ready codes a server moves between. Every move goes through
+     * setReady(), which keeps the node indexes of its system and bundle in
+     * step.
+     */
+    public enum State {
+        UNASSIGNED(-3), // not in any system yet
+        IN_SYSTEM(-2), // in a system, not in an application
+        IDLE(-1),
+        FULL(0), // CPU utilization at or over 100%
+        READY(1);
+
+        private final int code;
+
+        private State(int code) {
+            this.code = code;
+        }
+
+        public int getCode() {
+            return code;
+        }
+
+        public static State of(int code) {
+            if (code < UNASSIGNED.code || code > READY.code) {
+                throw new IllegalArgumentException("Ready code: " + code);
+            }
+            return values()[code - UNASSIGNED.code];
+        }
+    }
+
     private int dependency = 0;
     private double[] frequencyLevel;
     private double[] powerBusy;
     private double[] powerIdle;
-    private double Mips;
     private double idleConsumption;
     private String bladeType;
     private double respTime = 0;
     private double resTimeEpoch = 0;
-    private double currentCPU = 0;
     private double queueLength;
     private double totalJob = 0;
     private double totalJobEpoch = 0;
-    private int ready;
     private int backUpReady;
-    private List<BatchJob> activeBatchList;
-    private List<BatchJob> blockedBatchList;
+    private BatchJobSlots activeBatchList;
+    private BatchJobSlots blockedBatchList;
     private List<EnterpriseJob> EnterprizList;
     private List<InteractiveJob> WebBasedList;
-    private int chassisID;
     private int totalFinishedJob = 0;
     private int serverID;
-    private int rackId;
     // Application Bundle
     private int timeTreshold = 0;
     private int SLAPercentage;
@@ -50,8 +73,61 @@ public class BladeServer {
     private int maxExpectedRes = 0;
     private boolean SLAviolation;
     private Environment environment;
+    private Chassis chassis;
+    // ready, MIPS, CPU, location and the cached power live in this row
+    private final ServerStateTable table;
+    private final int row;
+    // once attached, the power is kept up to date and changes are pushed to
+    // the tree and the group
+    private PowerAggregationTree powerTree;
+    private int treeChassis;
+    private PowerGroup powerGroup;
+    // indexes of the system and the bundle this server is in, and its
+    // position in each
+    private ReadyStateIndex[] readyIndexes = new ReadyStateIndex[0];
+    private int[] readyIndexPositions = new int[0];
+    private final ShareScratch scratch = new ShareScratch();
+
+    /**
+     * Arrays run() and shareMips() reuse from tick to tick, grown to the
+     * largest number of active jobs the server had.
+     */
+    private static final class ShareScratch {
+        double[] shares = new double[0];
+        int[] ended = new int[0];
+        BatchJob[] endedJobs = new BatchJob[0];
+        int[] endedNodeIndexes = new int[0];
+        int[] next = new int[0];
+        int[] previous = new int[0];
+        boolean[] changed = new boolean[0];
+        int[] round = new int[0];
+        int[] missed = new int[0];
+        final double[] remain = new double[1];
+
+        void ensure(int num) {
+            if (shares.length >= num) {
+                return;
+            }
+            int length = Math.max(4, 2 * num);
+            shares = new double[length];
+            ended = new int[length];
+            endedJobs = new BatchJob[length];
+            endedNodeIndexes = new int[length];
+            next = new int[length];
+            previous = new int[length];
+            changed = new boolean[length];
+            round = new int[length];
+            missed = new int[length];
+        }
+    }
 
     public BladeServer(int chasID, Environment environment) {
+        this(new ServerStateTable(1), chasID, environment);
+    }
+
+    public BladeServer(ServerStateTable table, int chasID, Environment environment) {
+        this.table = table;
+        this.row = table.addRow();
         this.environment = environment;
         setRespTime(0);
         // if it is -1 means that it is not put in the proper position yet ID
@@ -59,12 +135,10 @@ public class BladeServer {
         setChassisID(chasID);
         setBladeType(new String());
         setCurrentCPU(0);
-        setActiveBatchList(new ArrayList<BatchJob>());
-        setBlockedBatchList(new ArrayList<BatchJob>());
+        setActiveBatchList(new BatchJobSlots());
+        setBlockedBatchList(new BatchJobSlots());
         setEnterprizList(new ArrayList<EnterpriseJob>());
         setWebBasedList(new ArrayList<InteractiveJob>());
-        setResponseList(new ArrayList<ResponseTime>());
-        setResponseListWeb(new ArrayList<ResponseTime>());
         setQueueLength(0);
         // -3 means it is not assigned to any system yet
         // -2: it is in a system but is not assigned to an application
@@ -98,6 +172,13 @@ public class BladeServer {
     }
 
     public double getPower() {
+        if (!table.isPowerValid(row)) {
+            table.setPower(row, computePower());
+        }
+        return table.getPower(row);
+    }
+
+    private double computePower() {
         double pw = 0, w = 0, a = 0, cpu = 0, mips = 0;
         int j;
         cpu = getCurrentCPU();
@@ -133,8 +214,8 @@ public class BladeServer {
     public void restart() {
         setRespTime(0);
         setCurrentCPU(0);
-        setActiveBatchList(new ArrayList<BatchJob>());
-        setBlockedBatchList(new ArrayList<BatchJob>());
+        setActiveBatchList(new BatchJobSlots());
+        setBlockedBatchList(new BatchJobSlots());
         setEnterprizList(new ArrayList<EnterpriseJob>());
         setWebBasedList(new ArrayList<InteractiveJob>());
         setQueueLength(0);
@@ -168,7 +249,16 @@ public class BladeServer {
     // feeding batch type Job to blade server
 
     public void feedWork(BatchJob job) {
-        getActiveBatchList().add(job);
+        feedWork(job, job.getThisNodeIndex(getServerID()));
+    }
+
+    /**
+     * Feeds job, of which this server is node nodeIndex.
+     */
+    public void feedWork(BatchJob job, int nodeIndex) {
+        boolean wasFree = isFree();
+        getActiveBatchList().add(job, nodeIndex);
+        batchJobsChanged(wasFree);
         setReady();
         setDependency();
         setTotalJob(getTotalJob() + 1);
@@ -187,13 +277,21 @@ public class BladeServer {
     }
 
     public int getCurrentFreqLevel() {
-        for (int i = 0; i < getFrequencyLevel().length; i++) {
-            if (getMips() == getFrequencyLevel()[i]) {
-                return i; // statrs from 1 not zero!
+        int currentFreqLevel = table.getFrequencyLevel(row);
+        if (currentFreqLevel == ServerStateTable.UNKNOWN_LEVEL) {
+            currentFreqLevel = -1;
+            for (int i = 0; i < getFrequencyLevel().length; i++) {
+                if (getMips() == getFrequencyLevel()[i]) {
+                    currentFreqLevel = i; // statrs from 1 not zero!
+                    break;
+                }
             }
+            table.setFrequencyLevel(row, currentFreqLevel);
+        }
+        if (currentFreqLevel == -1) {
+            LOGGER.info("wrong frequency level !! ");
         }
-        LOGGER.info("wrong frequency level !! ");
-        return -1;
+        return currentFreqLevel;
     }
 
     public int increaseFrequency() {
@@ -232,110 +330,290 @@ public class BladeServer {
     // running batch type JOB
 
     public int run(BatchJob j) {
-        double tempCpu = 0;
-        double num = getActiveBatchList().size(), index = 0, index_1 = 0, rmpart = 0;
-        int i = 0;
-        double share = 0, share_t = 0, extraShare = 0;
+        BatchJobSlots jobs = getActiveBatchList();
+        int num = jobs.size();
         if (num == 0) {
             setReady(1);
             setDependency();
             setCurrentCPU(0);
             return 0;
         }
-        share = getMips() / num;// second freqcuency level!
-        // LOGGER.info("Share "+share);
-        share_t = share;
-        int ret_done = 0;
-        while (index < num) { // index<activeBatchList.size()
-            index_1 = index;
-            for (i = 0; i < getActiveBatchList().size(); i++) {
-                if (getActiveBatchList().get(i).getUtilization() <= share
-                        & getActiveBatchList().get(i).getIsChangedThisTime() == 0) {
-                    extraShare = extraShare + share - getActiveBatchList().get(i).getUtilization();
-                    index++;
-                    getActiveBatchList().get(i).setIsChangedThisTime(1);
-                    tempCpu = getActiveBatchList().get(i).getUtilization() + tempCpu;
-                    ret_done = done(i, share_t);
-                    i = i - ret_done;
-                    // i=i-done(i,activeBatchList.get(i).utilization);
-                }
+        scratch.ensure(num);
+        int[] ended = scratch.ended;
+        double tempCpu = shareMips(jobs, scratch.shares, ended);
+        int numberOfEnded = 0;
+        while (numberOfEnded < num && ended[numberOfEnded] >= 0) {
+            numberOfEnded++;
+        }
+        if (numberOfEnded > 0) {
+            BatchJob[] endedJobs = scratch.endedJobs;
+            int[] endedNodeIndexes = scratch.endedNodeIndexes;
+            for (int k = 0; k < numberOfEnded; k++) {
+                endedJobs[k] = jobs.get(ended[k]);
+                endedNodeIndexes[k] = jobs.getNodeIndex(ended[k]);
+            }
+            // from the last slot down, so no ended job is moved before it goes
+            Arrays.sort(ended, 0, numberOfEnded);
+            for (int k = numberOfEnded - 1; k >= 0; k--) {
+                jobs.remove(ended[k]);
+            }
+            batchJobsChanged(false);
+            for (int k = 0; k < numberOfEnded; k++) {
+                done(endedJobs[k], endedNodeIndexes[k]);
+                endedJobs[k] = null;
+            }
+        }
+        // Inja be nazaram /MIPS ham mikhad ke sad beshe fek konam MIPS ro dar
+        // nazar nagereftam!
+        setCurrentCPU(100.0 * tempCpu / getMips());
+        // LOGGER.info("CPU= " + currentCPU +"num= "+num);
+        setReady();
+        setDependency();
+        return 1;
+    }
+
+    /**
+     * Splits the MIPS among the active jobs in rounds over the jobs in the
+     * order they were added. A round gives every job whose utilization is at
+     * most the current share an equal share of the MIPS, and the share grows
+     * by what those jobs leave unused. The jobs left after the last round get
+     * the share over their utilization. The jobs stay sorted by utilization
+     * from tick to tick, so each round only takes the next ones of them and
+     * sorts those back into the order they were added.
+     * 
+     * A job whose part on this server ends while the job is not done makes
+     * the job added after it miss the round, or the whole tick after the last
+     * round, as in the original loop that removed it from the list it walked.
+     * 
+     * FIXME: the rounds and the missed job keep the original results. A single
+     * pass over the jobs sorted by utilization, without the missed job, gives
+     * every job its share and belongs in a change of its own.
+     * 
+     * shares receives the progress of each job in a tick. If ended is not
+     * null the progress is applied, and ended receives the slots of the jobs
+     * that leave, in the order they leave, then -1. Returns the MIPS in use.
+     * scratch has to hold room for the active jobs.
+     */
+    private double shareMips(BatchJobSlots jobs, double[] shares, int[] ended) {
+        int num = jobs.size();
+        // jobs are numbered by place in the order they were added
+        int[] slots = jobs.slotsInAddedOrder();
+        int[] byUtilization = jobs.placesByUtilization();
+        // the jobs still in the list, linked by place; num ends the list
+        int[] next = scratch.next;
+        int[] previous = scratch.previous;
+        boolean[] changed = scratch.changed;
+        for (int place = 0; place < num; place++) {
+            next[place] = place + 1;
+            previous[place] = place - 1;
+            changed[place] = false;
+        }
+        int first = 0;
+        int[] round = scratch.round;
+        int[] missed = scratch.missed;
+        int numberMissed = 0;
+        int numberOfEnded = 0;
+        double equalShare = getMips() / num;
+        double share = equalShare;
+        double extraShare = 0;
+        double used = 0;
+        int index = 0;
+        int taken = 0;
+        while (index < num) {
+            int index_1 = index;
+            int roundSize = numberMissed;
+            System.arraycopy(missed, 0, round, 0, numberMissed);
+            numberMissed = 0;
+            while (taken < num && jobs.get(slots[byUtilization[taken]]).getUtilization() <= share) {
+                round[roundSize++] = byUtilization[taken++];
             }
-            for (i = 0; i < getActiveBatchList().size(); i++) {
-                if (getActiveBatchList().get(i).getIsChangedThisTime() == 0) {
-                    rmpart++;
+            Arrays.sort(round, 0, roundSize);
+            int skipped = -1;
+            for (int r = 0; r < roundSize; r++) {
+                int place = round[r];
+                if (place == skipped) {
+                    missed[numberMissed++] = place;
+                    continue;
+                }
+                BatchJob job = jobs.get(slots[place]);
+                extraShare = extraShare + share - job.getUtilization();
+                index++;
+                changed[place] = true;
+                used = job.getUtilization() + used;
+                shares[slots[place]] = equalShare;
+                if (ended != null && progress(job, jobs.getNodeIndex(slots[place]), equalShare)) {
+                    ended[numberOfEnded++] = slots[place];
+                    first = unlink(place, first, num, next, previous);
+                    skipped = skipsNext(job, jobs.getNodeIndex(slots[place])) ? next[place] : -1;
                 }
             }
+            double rmpart = num - index;
             if (rmpart != 0) {
                 share = share + extraShare / rmpart;
             }
-            rmpart = 0;
             extraShare = 0;
             if (index == index_1) {
                 break;
             }
         }
-        for (i = 0; i < getActiveBatchList().size(); i++) {
-            if (getActiveBatchList().get(i).getIsChangedThisTime() == 0) {
-                // ret_done=done(i,share/activeBatchList.get(i).utilization);
-                if ((share / getActiveBatchList().get(i).getUtilization()) > 1) {
-                    LOGGER.info("share more than one!\t" + share_t + "\t" + share + "\t"
-                            + getActiveBatchList().get(i).getUtilization() + "\t" + environment.getCurrentLocalTime());
-                }
-                getActiveBatchList().get(i).setIsChangedThisTime(1);
-                ret_done = done(i, share / getActiveBatchList().get(i).getUtilization());
-                tempCpu = tempCpu + share;
-                i = i - ret_done; // if a job has been removed (finished) in
-                // DONE function
+        int skipped = -1;
+        for (int place = first; place < num; place = next[place]) {
+            if (changed[place] || place == skipped) {
+                continue;
+            }
+            BatchJob job = jobs.get(slots[place]);
+            shares[slots[place]] = share / job.getUtilization();
+            used = used + share;
+            if (ended != null && progress(job, jobs.getNodeIndex(slots[place]), shares[slots[place]])) {
+                ended[numberOfEnded++] = slots[place];
+                first = unlink(place, first, num, next, previous);
+                skipped = skipsNext(job, jobs.getNodeIndex(slots[place])) ? next[place] : -1;
             }
         }
-        for (BatchJob job : getActiveBatchList()) {
-            job.setIsChangedThisTime(0);
+        if (ended != null && numberOfEnded < num) {
+            ended[numberOfEnded] = -1;
         }
-        // Inja be nazaram /MIPS ham mikhad ke sad beshe fek konam MIPS ro dar
-        // nazar nagereftam!
-        setCurrentCPU(100.0 * tempCpu / getMips());
-        // LOGGER.info("CPU= " + currentCPU +"num= "+num);
-        setReady();
-        setDependency();
-        return 1;
+        return used;
+    }
+
+    // takes place out of the num linked jobs; returns the new first place
+    private static int unlink(int place, int first, int num, int[] next, int[] previous) {
+        if (next[place] < num) {
+            previous[next[place]] = previous[place];
+        }
+        if (previous[place] >= 0) {
+            next[previous[place]] = next[place];
+            return first;
+        }
+        return next[place];
+    }
+
+    // a job that left with work on other nodes made the original loop step
+    // over the next job
+    private static boolean skipsNext(BatchJob job, int ki) {
+        return job.getRemain()[ki] <= 0 && !job.allDone();
+    }
+
+    /**
+     * Number of the coming ticks (at most limit) in which run() would only
+     * decrease the remaining work of the active jobs, without any of them
+     * finishing on this server.
+     */
+    public int quietTicks(int limit) {
+        if (getActiveBatchList().isEmpty()) {
+            return limit;
+        }
+        int num = getActiveBatchList().size();
+        double[] shares = runShares();
+        double[] remain = scratch.remain;
+        int ticks = limit;
+        for (int i = 0; i < num && ticks > 0; i++) {
+            if (shares[i] == 0) {
+                return 0;
+            }
+            remain[0] = getActiveBatchList().get(i).getRemain()[getActiveBatchList().getNodeIndex(i)];
+            ticks = countDown(remain, 0, shares[i], ticks);
+        }
+        return ticks;
+    }
+
+    /**
+     * Applies the job progress of ticks quiet ticks, see quietTicks(int).
+     * CPU, ready and dependency are left as the last run() set them since
+     * run() would compute the same values again.
+     */
+    public void skipQuietTicks(int ticks) {
+        if (getActiveBatchList().isEmpty()) {
+            return;
+        }
+        int num = getActiveBatchList().size();
+        double[] shares = runShares();
+        for (int i = 0; i < num; i++) {
+            BatchJob job = getActiveBatchList().get(i);
+            countDown(job.getRemain(), getActiveBatchList().getNodeIndex(i), shares[i], ticks);
+        }
+    }
+
+    /**
+     * Subtracts share from remain[i] once a tick, as run() does, for at most
+     * ticks ticks and as long as remain[i] stays above zero. Returns the
+     * number of ticks applied. While remain[i] stays in one binade every
+     * subtraction rounds share the same way, so such a run of ticks is
+     * applied in one step and the result is the one of the tick by tick loop.
+     */
+    static int countDown(double[] remain, int i, double share, int ticks) {
+        double r = remain[i];
+        int done = 0;
+        while (done < ticks) {
+            long steps = 0;
+            if (r >= Double.MIN_NORMAL) {
+                double ulp = Math.ulp(r);
+                double units = share / ulp;
+                double rounded = Math.rint(units);
+                // ticks that keep r - share at least one ulp above the binade
+                long room = (long) ((r - Math.scalb(1.0, Math.getExponent(r))) / ulp) - 1;
+                // a tie would round to even, which depends on r
+                if (room >= 0 && Math.abs(units - rounded) != 0.5) {
+                    if (rounded == 0) {
+                        steps = ticks - done;
+                    } else if (rounded <= room) {
+                        steps = Math.min(room / (long) rounded, ticks - done);
+                    }
+                }
+                if (steps > 0) {
+                    r = (r / ulp - steps * rounded) * ulp;
+                    done += (int) steps;
+                    continue;
+                }
+            }
+            double next = r - share;
+            if (next <= 0) {
+                break;
+            }
+            r = next;
+            done++;
+        }
+        remain[i] = r;
+        return done;
+    }
+
+    // same share computation as run() in a tick in which no job ends,
+    // without touching the jobs; one share per slot, in a reused array
+    private double[] runShares() {
+        scratch.ensure(getActiveBatchList().size());
+        shareMips(getActiveBatchList(), scratch.shares, null);
+        return scratch.shares;
     }
 
-    public int done(int tmp, double share) {
-        // return 1 means: a job has been finished
-        BatchJob job = getActiveBatchList().get(tmp);
-        int ki;
-        // int
-        // serverIndex=chassisID*DataCenter.theDataCenter.chassisSet.get(0).servers.size()+serverID;
-        // //getting this server ID
-        int serverIndex = getServerID();
-        ki = job.getThisNodeIndex(serverIndex);
+    // returns true when job, of which this server is node ki, leaves the
+    // active list of this server
+    private boolean progress(BatchJob job, int ki, double share) {
         if (share == 0) {
             LOGGER.info(
                     "In DONE share== zero00000000000000000000000000000000000000oo,revise the code  need some work!");
             job.setExitTime(environment.getCurrentLocalTime());
-            getActiveBatchList().remove(tmp--);
             // totalFinishedJob++;
-            return 1;
+            return true;
         }
         if (ki == -1) {
             LOGGER.info("Blade server is wrong in BladeServer!!!");
         }
-        // setRemainAllNodes(tmp, share);
         job.getRemain()[ki] = job.getRemain()[ki] - share;
-        if (job.getRemain()[ki] <= 0) {
-            getBlockedBatchList().add(job);
-            getActiveBatchList().get(tmp).setIsChangedThisTime(0);
-            getActiveBatchList().remove(job);// still exsits in other nodes
-            if (job.allDone()) {
-
-                job.jobFinished();
+        return job.getRemain()[ki] <= 0;
+    }
 
-                setDependency();
-                setTotalFinishedJob(getTotalFinishedJob() + 1);
-                return 1;
-            }
+    // job left the active list: it waits for its other nodes, unless it was
+    // dropped for getting no share
+    private void done(BatchJob job, int ki) {
+        if (job.getRemain()[ki] > 0) {
+            return;
+        }
+        getBlockedBatchList().add(job, ki);// still exsits in other nodes
+        if (job.allDone()) {
+            job.jobFinished();
+            setDependency();
+            setTotalFinishedJob(getTotalFinishedJob() + 1);
         }
-        return 0;
     }
 
     void setDependency() {
@@ -354,9 +632,9 @@ public class BladeServer {
             tmp = tmp + getActiveBatchList().get(i).getUtilization();
         }
         if (tmp >= treshold) {
-            ready = 0;
+            setReady(0);
         } else {
-            ready = 1;
+            setReady(1);
         }
     }
 
@@ -429,22 +707,6 @@ public class BladeServer {
     // return i/DataCenter.theDataCenter.chassisSet.get(0).servers.size();
     // }
 
-    public List<ResponseTime> getResponseList() {
-        return responseList;
-    }
-
-    public void setResponseList(List<ResponseTime> responseList) {
-        this.responseList = responseList;
-    }
-
-    public List<ResponseTime> getResponseListWeb() {
-        return responseListWeb;
-    }
-
-    public void setResponseListWeb(List<ResponseTime> responseListWeb) {
-        this.responseListWeb = responseListWeb;
-    }
-
     public int getDependency() {
         return dependency;
     }
@@ -459,6 +721,8 @@ public class BladeServer {
 
     public void setFrequencyLevel(double[] frequencyLevel) {
         this.frequencyLevel = frequencyLevel;
+        table.setFrequencyLevel(row, ServerStateTable.UNKNOWN_LEVEL);
+        powerChanged();
     }
 
     public double[] getPowerBusy() {
@@ -467,6 +731,7 @@ public class BladeServer {
 
     public void setPowerBusy(double[] powerBusy) {
         this.powerBusy = powerBusy;
+        powerChanged();
     }
 
     public double[] getPowerIdle() {
@@ -475,6 +740,7 @@ public class BladeServer {
 
     public void setPowerIdle(double[] powerIdle) {
         this.powerIdle = powerIdle;
+        powerChanged();
     }
 
     public double getIdleConsumption() {
@@ -483,14 +749,19 @@ public class BladeServer {
 
     public void setIdleConsumption(double idleConsumption) {
         this.idleConsumption = idleConsumption;
+        powerChanged();
     }
 
     public double getMips() {
-        return Mips;
+        return table.getMips(row);
     }
 
     public void setMips(double mips) {
-        Mips = mips;
+        if (table.getMips(row) != mips) {
+            table.setMips(row, mips);
+            table.setFrequencyLevel(row, ServerStateTable.UNKNOWN_LEVEL);
+            powerChanged();
+        }
     }
 
     public double getResponseTime() {
@@ -510,11 +781,14 @@ public class BladeServer {
     }
 
     public double getCurrentCPU() {
-        return currentCPU;
+        return table.getCurrentCPU(row);
     }
 
     public void setCurrentCPU(double currentCPU) {
-        this.currentCPU = currentCPU;
+        if (table.getCurrentCPU(row) != currentCPU) {
+            table.setCurrentCPU(row, currentCPU);
+            powerChanged();
+        }
     }
 
     public double getQueueLength() {
@@ -542,11 +816,33 @@ public class BladeServer {
     }
 
     public int getReady() {
-        return ready;
+        return table.getReady(row);
+    }
+
+    public State getState() {
+        return State.of(getReady());
     }
 
+    /**
+     * Moves the server to the state with code ready and tells the indexes it
+     * is in.
+     */
     public void setReady(int ready) {
-        this.ready = ready;
+        if (ready < State.UNASSIGNED.getCode() || ready > State.READY.getCode()) {
+            throw new IllegalArgumentException("Ready code: " + ready);
+        }
+        int oldReady = table.getReady(row);
+        if (oldReady != ready) {
+            table.setReady(row, ready);
+            for (int i = 0; i < readyIndexes.length; i++) {
+                readyIndexes[i].readyChanged(readyIndexPositions[i], oldReady, ready);
+            }
+            powerChanged();
+        }
+    }
+
+    public void setState(State state) {
+        setReady(state.getCode());
     }
 
     public int getBackUpReady() {
@@ -557,19 +853,40 @@ public class BladeServer {
         this.backUpReady = backUpReady;
     }
 
-    public List<BatchJob> getActiveBatchList() {
+    public BatchJobSlots getActiveBatchList() {
         return activeBatchList;
     }
 
-    public void setActiveBatchList(List<BatchJob> activeBatchList) {
+    public void setActiveBatchList(BatchJobSlots activeBatchList) {
+        boolean wasFree = this.activeBatchList != null && isFree();
         this.activeBatchList = activeBatchList;
+        batchJobsChanged(wasFree);
+    }
+
+    /**
+     * True when the server is ready and runs no batch job, so a job started
+     * on it gets the server for itself.
+     */
+    public boolean isFree() {
+        return getReady() == State.READY.getCode() && getActiveBatchList().isEmpty();
     }
 
-    public List<BatchJob> getBlockedBatchList() {
+    // tells the indexes when adding or removing batch jobs made the server
+    // free or not; changes of ready are told by setReady(int)
+    private void batchJobsChanged(boolean wasFree) {
+        boolean free = isFree();
+        if (free != wasFree) {
+            for (int i = 0; i < readyIndexes.length; i++) {
+                readyIndexes[i].freeChanged(readyIndexPositions[i], free);
+            }
+        }
+    }
+
+    public BatchJobSlots getBlockedBatchList() {
         return blockedBatchList;
     }
 
-    public void setBlockedBatchList(List<BatchJob> blockedBatchList) {
+    public void setBlockedBatchList(BatchJobSlots blockedBatchList) {
         this.blockedBatchList = blockedBatchList;
     }
 
@@ -597,12 +914,108 @@ public class BladeServer {
         this.totalFinishedJob = totalFinishedJob;
     }
 
+    public ServerStateTable getStateTable() {
+        return table;
+    }
+
+    public int getStateRow() {
+        return row;
+    }
+
+    void setChassis(Chassis chassis) {
+        this.chassis = chassis;
+    }
+
+    void attachPowerTree(PowerAggregationTree powerTree, int treeChassis) {
+        this.powerTree = powerTree;
+        this.treeChassis = treeChassis;
+    }
+
+    /**
+     * True while readyIndex follows the ready state of this server.
+     */
+    public boolean isIndexedBy(ReadyStateIndex readyIndex) {
+        for (ReadyStateIndex attached : readyIndexes) {
+            if (attached == readyIndex) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // adds readyIndex, or moves this server in it
+    void attachReadyIndex(ReadyStateIndex readyIndex, int position) {
+        for (int i = 0; i < readyIndexes.length; i++) {
+            if (readyIndexes[i] == readyIndex) {
+                readyIndexPositions[i] = position;
+                return;
+            }
+        }
+        int attached = readyIndexes.length;
+        readyIndexes = Arrays.copyOf(readyIndexes, attached + 1);
+        readyIndexPositions = Arrays.copyOf(readyIndexPositions, attached + 1);
+        readyIndexes[attached] = readyIndex;
+        readyIndexPositions[attached] = position;
+    }
+
+    void detachReadyIndex(ReadyStateIndex readyIndex) {
+        for (int i = 0; i < readyIndexes.length; i++) {
+            if (readyIndexes[i] == readyIndex) {
+                int last = readyIndexes.length - 1;
+                readyIndexes[i] = readyIndexes[last];
+                readyIndexPositions[i] = readyIndexPositions[last];
+                readyIndexes = Arrays.copyOf(readyIndexes, last);
+                readyIndexPositions = Arrays.copyOf(readyIndexPositions, last);
+                return;
+            }
+        }
+    }
+
+    public PowerGroup getPowerGroup() {
+        return powerGroup;
+    }
+
+    /**
+     * Moves this server's power from its current group, if any, to powerGroup.
+     */
+    public void setPowerGroup(PowerGroup powerGroup) {
+        if (this.powerGroup != null) {
+            this.powerGroup.add(-getPower());
+        }
+        this.powerGroup = powerGroup;
+        if (powerGroup != null) {
+            powerGroup.add(getPower());
+        }
+    }
+
+    // currentCPU, Mips and ready are what getPower() depends on
+    private void powerChanged() {
+        if (powerTree != null || powerGroup != null) {
+            double old = getPower();
+            table.setPower(row, computePower());
+            double delta = table.getPower(row) - old;
+            if (delta != 0) {
+                if (powerTree != null) {
+                    powerTree.serverPowerChanged(treeChassis);
+                }
+                if (powerGroup != null) {
+                    powerGroup.add(delta);
+                }
+            }
+        } else {
+            table.invalidatePower(row);
+        }
+        if (chassis != null) {
+            chassis.serverPowerChanged();
+        }
+    }
+
     public int getChassisID() {
-        return chassisID;
+        return table.getChassisID(row);
     }
 
     public void setChassisID(int chassisID) {
-        this.chassisID = chassisID;
+        table.setChassisID(row, chassisID);
     }
 
     public int getServerID() {
@@ -614,11 +1027,11 @@ public class BladeServer {
     }
 
     public int getRackId() {
-        return rackId;
+        return table.getRackID(row);
     }
 
     public void setRackId(int rackId) {
-        this.rackId = rackId;
+        table.setRackID(row, rackId);
     }
 
     public int getTimeTreshold() {
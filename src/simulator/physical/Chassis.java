@@ -14,6 +14,11 @@ public class Chassis {
     private int chassisID, rackId;
     private String chassisType = new String();
     private Environment environment;
+    // set when the chassis is placed in a data center
+    private DataCenter dataCenter;
+    private int index;
+    // whether the data center already knows the power changed
+    private boolean powerChanged = true;
 
     public Chassis(int idArg, Environment environment) {
         // if it is -1 means this chassis is just a template and not assigned
@@ -25,6 +30,36 @@ public class Chassis {
     public List<BladeServer> getServers() {
         return servers;
     }
+
+    public void addServer(BladeServer bladeServer) {
+        servers.add(bladeServer);
+        bladeServer.setChassis(this);
+        serverPowerChanged();
+    }
+
+    void attach(DataCenter dataCenter, int index) {
+        this.dataCenter = dataCenter;
+        this.index = index;
+        powerChanged = true;
+    }
+
+    // called by the servers whenever their power may have changed
+    void serverPowerChanged() {
+        if (!powerChanged) {
+            powerChanged = true;
+            if (dataCenter != null) {
+                dataCenter.chassisPowerChanged(index);
+            }
+        }
+    }
+
+    boolean isPowerChanged() {
+        return powerChanged;
+    }
+
+    void powerUpdated() {
+        powerChanged = false;
+    }
     
     public int getRackID() {
         return rackId;
@@ -51,6 +86,9 @@ public class Chassis {
     }
 
     double power() {
+        if (dataCenter != null) {
+            return dataCenter.getPowerTree().getChassisPower(index);
+        }
         double pw = 0;
         for (BladeServer bladeServer : servers) {
             pw = pw + bladeServer.getPower();
@@ -95,7 +133,7 @@ public class Chassis {
                 BladeServer bldServ = new BladeServer(-1, environment);
                 // s[j]=s[j].substring(1,s[j].length()-1);
                 bldServ.setBladeType(s[j].trim());
-                servers.add(bldServ);
+                addServer(bldServ);
             }
         }
 
@@ -5,6 +5,7 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
+import java.util.Arrays;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -22,10 +23,38 @@ public final class DataCenter {
     private Cooler cooler1 = new Cooler();
     private List<Chassis> chassisSet;
     private int redTemperature;
+    // ticks between two thermal updates
+    private int thermalPeriod = 1;
+    // power drawn since the last thermal update, indexed like chassisSet
+    private double[] intervalChassisEnergy;
+    private double intervalEnergy = 0;
+    private int intervalTicks = 0;
+    private int intervalSteps = 0;
     private FileOutputStream fos;
     private OutputStreamWriter oos;
-    private double[][] D;
+    private RecirculationMatrix D;
+    // chassis indexes from the most to the least heat recirculating, and the
+    // position of each chassis in that order
+    private int[] chassisRanking;
+    private int[] chassisRank;
+    // per tick chassis power and inlet temperature, indexed like chassisSet
+    private double[] chassisPower;
+    private double[] temperature;
+    // chassis whose power changed since the last calculatePower()
+    private int[] changedChassis;
+    private int numberOfChangedChassis = 0;
+    private int updatesSinceFullProduct = FULL_PRODUCT_PERIOD;
+    /**
+     * Temperatures are updated column by column from the chassis power
+     * changes; every this many updates they are recomputed from scratch so
+     * rounding errors do not pile up.
+     */
+    static final int FULL_PRODUCT_PERIOD = 1024;
     private DataCenterAM am;
+    private ServerRegistry serverRegistry;
+    private RackIndex rackIndex;
+    private PowerAggregationTree powerTree;
+    private ThermalKernel kernel = ThermalKernel.getInstance();
     
     private Environment environment;
     public DataCenter(DataCenterPOD dataCenterPOD, Environment environment, Systems systems) {
@@ -43,55 +72,86 @@ public final class DataCenter {
         // reading config file to set the parameters
         chassisSet = dataCenterPOD.getChassis();
         redTemperature = dataCenterPOD.getRedTemperature();
-        D = dataCenterPOD.getD();
+        serverRegistry = dataCenterPOD.getServerRegistry();
+        rackIndex = dataCenterPOD.getRackIndex();
+        D = dataCenterPOD.getRecirculationMatrix();
+        chassisRanking = dataCenterPOD.getChassisRanking();
+        chassisRank = new int[chassisRanking.length];
+        for (int k = 0; k < chassisRanking.length; k++) {
+            chassisRank[chassisRanking[k]] = k;
+        }
+        chassisPower = new double[chassisSet.size()];
+        temperature = new double[chassisSet.size()];
+        intervalChassisEnergy = new double[chassisSet.size()];
+        changedChassis = new int[chassisSet.size()];
+        powerTree = new PowerAggregationTree(chassisSet);
+        for (int i = 0; i < chassisSet.size(); i++) {
+            chassisSet.get(i).attach(this, i);
+        }
     }
 
-    int getServerIndex(int i) {
-        return i % chassisSet.get(0).getServers().size();
+    public void calculatePower() {
+        calculatePower(1);
     }
 
-    int getChasisIndex(int i) {
-        return i / chassisSet.get(0).getServers().size();
+    /**
+     * Accounts the current power draw for ticks ticks, starting at the current
+     * local time. A line is still written to out_W.txt for every tick.
+     */
+    public void calculatePower(int ticks) {
+        accountPower(ticks);
+        updateThermal(environment.getCurrentLocalTime(), ticks);
     }
 
-    public void calculatePower() {
-        int m = chassisSet.size();
-        double computingPower = 0;
-        double[] temprature = new double[m];
-        double maxTemp = 0;
-        for (int i = 0; i < m; i++) {
-            double temp = chassisSet.get(i).power();
-            // if(chassisSet.get(i).getServers().get(0).currentCPU!=0)
-            // LOGGER.info(chassisSet.get(i).servers.get(0).currentCPU +"
-            // \ttime ="+Main.localTime +" \t chassi
-            // id="+chassisSet.get(i).chassisID );
-
-            try {
-                oos.write((int) temp + "\t");
-            } catch (IOException ex) {
-                LOGGER.severe(ex.getMessage());
+    /**
+     * Adds ticks ticks at the current power draw to the interval the next
+     * thermal update closes.
+     */
+    public void accountPower(int ticks) {
+        // with a one tick period every interval is a single step at constant power
+        if (thermalPeriod > 1) {
+            for (int i = 0; i < chassisSet.size(); i++) {
+                intervalChassisEnergy[i] = intervalChassisEnergy[i] + chassisSet.get(i).power() * ticks;
             }
-            computingPower = computingPower + temp;
         }
-        // LOGGER.info("in betweeeeeen");
-        for (int i = 0; i < m; i++) {
-            for (int j = 0; j < m; j++) {
-                temprature[i] = temprature[i] + D[i][j] * chassisSet.get(j).power();
-                // LOGGER.info(chassis_list[i]);
-            }
+        intervalEnergy = intervalEnergy + powerTree.getTotalPower() * ticks;
+        intervalTicks += ticks;
+        intervalSteps++;
+    }
+
+    /**
+     * Closes the interval accounted since the last update: evaluates the
+     * thermal model on the interval's average chassis power and charges its
+     * energy at the resulting cooler COP. The last step of the interval
+     * covers [time, time + ticks); a line is written to out_W.txt for each of
+     * its ticks t with t % thermalPeriod == 0.
+     */
+    public void updateThermal(int time, int ticks) {
+        if (intervalTicks == 0) {
+            return;
         }
-        maxTemp = temprature[0];
+        int m = chassisSet.size();
+        double computingPower;
+        double maxTemp = 0;
+        if (intervalSteps == 1) {
+            // the power did not change during the interval
+            computingPower = powerTree.getTotalPower();
+            updateTemperature();
+        } else {
+            computingPower = intervalEnergy / intervalTicks;
+            averageTemperature();
+        }
+        StringBuilder chassisPowers = new StringBuilder();
         for (int i = 0; i < m; i++) {
-            if (maxTemp < temprature[i]) {
-                maxTemp = temprature[i];
-            }
+            chassisPowers.append((int) chassisPower[i]).append('\t');
         }
+        maxTemp = kernel.max(temperature, m);
         // LOGGER.info(maxTepm);
         maxTemp = redTemperature - maxTemp;
         if (maxTemp <= 0) {
             // LOGGER.info("maxTem less than 0000 " + maxTemp);
             am.setSlowDownFromCooler(true);
-            overRed++;
+            overRed += intervalTicks;
 
         } else {
             am.setSlowDownFromCooler(false);
@@ -101,13 +161,67 @@ public final class DataCenter {
             // LOGGER.info(((int)(Pcomp*(1+1.0/COP)))+"\t"+(int)Pcomp+"\t"+localTime);
             // oos.write(Integer.toString((int)
             // (Pcomp*(1+1.0/COP)))+"\t"+Integer.toString((int)Pcomp)+"\t"+localTime+"\t"+perc[0]+"\t"+perc[1]+"\t"+perc[2]+"\n");
-            oos.write(((int) (computingPower * (1 + 1.0 / cop))) + "\t" + (int) computingPower + "\t"
-                    + environment.getCurrentLocalTime() + "\n");
-            totalPowerConsumption = totalPowerConsumption + computingPower * (1 + 1.0 / cop);
+            chassisPowers.append((int) (computingPower * (1 + 1.0 / cop))).append('\t').append((int) computingPower)
+                    .append('\t');
+            String row = chassisPowers.toString();
+            int firstRowTime = (time + thermalPeriod - 1) / thermalPeriod * thermalPeriod;
+            for (int t = firstRowTime; t < time + ticks; t += thermalPeriod) {
+                oos.write(row + t + "\n");
+            }
+            if (intervalSteps == 1) {
+                totalPowerConsumption = totalPowerConsumption + computingPower * (1 + 1.0 / cop) * intervalTicks;
+            } else {
+                totalPowerConsumption = totalPowerConsumption + intervalEnergy * (1 + 1.0 / cop);
+            }
             // LOGGER.info(totalPowerConsumption);
         } catch (IOException ex) {
             Logger.getLogger(Package.class.getName()).log(Level.SEVERE, null, ex);
         }
+        Arrays.fill(intervalChassisEnergy, 0);
+        intervalEnergy = 0;
+        intervalTicks = 0;
+        intervalSteps = 0;
+    }
+
+    void chassisPowerChanged(int index) {
+        changedChassis[numberOfChangedChassis++] = index;
+    }
+
+    // brings chassisPower and temperature up to date with the servers
+    private void updateTemperature() {
+        int m = chassisSet.size();
+        if (updatesSinceFullProduct >= FULL_PRODUCT_PERIOD || 2 * numberOfChangedChassis > m) {
+            for (int i = 0; i < m; i++) {
+                chassisPower[i] = chassisSet.get(i).power();
+                chassisSet.get(i).powerUpdated();
+            }
+            D.multiply(chassisPower, temperature);
+            updatesSinceFullProduct = 0;
+        } else {
+            for (int k = 0; k < numberOfChangedChassis; k++) {
+                int j = changedChassis[k];
+                double power = chassisSet.get(j).power();
+                chassisSet.get(j).powerUpdated();
+                if (power != chassisPower[j]) {
+                    D.addColumn(j, power - chassisPower[j], temperature);
+                    chassisPower[j] = power;
+                }
+            }
+            updatesSinceFullProduct++;
+        }
+        numberOfChangedChassis = 0;
+    }
+
+    // temperature from the average chassis power of the interval; the next
+    // updateTemperature() starts over from the current chassis power
+    private void averageTemperature() {
+        for (int i = 0; i < chassisSet.size(); i++) {
+            chassisPower[i] = intervalChassisEnergy[i] / intervalTicks;
+            chassisSet.get(i).powerUpdated();
+        }
+        D.multiply(chassisPower, temperature);
+        numberOfChangedChassis = 0;
+        updatesSinceFullProduct = FULL_PRODUCT_PERIOD;
     }
 
     public void shutDownDC() throws FileNotFoundException, IOException {
@@ -115,6 +229,14 @@ public final class DataCenter {
         fos.close();
     }
 
+    public int getThermalPeriod() {
+        return thermalPeriod;
+    }
+
+    public void setThermalPeriod(int thermalPeriod) {
+        this.thermalPeriod = thermalPeriod;
+    }
+
     public DataCenterAM getAM() {
         return am;
     }
@@ -124,13 +246,36 @@ public final class DataCenter {
     }
 
     public BladeServer getServer(int i) {
-        return chassisSet.get(getChasisIndex(i)).getServers().get(getServerIndex(i));
+        return serverRegistry.getServer(i);
     }
 
     public BladeServer getServer(int indexChassis, int indexServer) {
         return chassisSet.get(indexChassis).getServers().get(indexServer);
     }
 
+    /**
+     * Chassis indexes ordered from the most to the least heat recirculating.
+     */
+    public int[] getChassisRanking() {
+        return chassisRanking;
+    }
+
+    public int getChassisRank(int chassis) {
+        return chassisRank[chassis];
+    }
+
+    public PowerAggregationTree getPowerTree() {
+        return powerTree;
+    }
+
+    public ServerRegistry getServerRegistry() {
+        return serverRegistry;
+    }
+
+    public RackIndex getRackIndex() {
+        return rackIndex;
+    }
+
     public List<Chassis> getChassisSet() {
         return chassisSet;
     }
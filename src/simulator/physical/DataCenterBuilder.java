@@ -28,7 +28,6 @@ public class DataCenterBuilder {
     private List<Chassis> CHSTemp = new ArrayList<Chassis>();
 
     private int numbOfSofarChassis = 0;
-    private int numOfServerSoFar = 0;
     private Environment environment;
     private DataCenterPOD dataCenterPOD;
     
@@ -96,6 +95,22 @@ public class DataCenterBuilder {
                 }
             }
         }
+        indexRacks();
+    }
+
+    // the ranks of the chassis come from the thermal model, so the racks are
+    // indexed once every chassis and the model are read
+    void indexRacks() {
+        int[] ranking = dataCenterPOD.getRecirculationMatrix().rankByRecirculation();
+        dataCenterPOD.setChassisRanking(ranking);
+        int[] rank = new int[ranking.length];
+        for (int k = 0; k < ranking.length; k++) {
+            rank[ranking[k]] = k;
+        }
+        for (int i = 0; i < dataCenterPOD.getNumberOfChassis(); i++) {
+            Chassis chassis = dataCenterPOD.getChassis().get(i);
+            dataCenterPOD.getRackIndex().addChassis(chassis.getRackID(), i, chassis, rank[i]);
+        }
     }
 
     void setUpRack(Node node) {
@@ -181,14 +196,14 @@ public class DataCenterBuilder {
     void cloneChassis(Chassis A, Chassis B) // A<--B
     {
         for (int i = 0; i < B.getServers().size(); i++) {
-            BladeServer a = new BladeServer(i, environment);
+            BladeServer a = new BladeServer(dataCenterPOD.getServerStateTable(), i, environment);
             //
             a.setFrequencyLevel(new double[B.getServers().get(i).getFrequencyLevel().length]);
             a.setPowerBusy(new double[B.getServers().get(i).getPowerBusy().length]);
             a.setPowerIdle(new double[B.getServers().get(i).getPowerIdle().length]);
             int numberOfMIPSlevels = B.getServers().get(i).getFrequencyLevel().length;
             //
-            A.getServers().add(a);
+            A.addServer(a);
 
             for (int p = 0; p < numberOfMIPSlevels; p++) {
                 A.getServers().get(i).getFrequencyLevel()[p] = B.getServers().get(i).getFrequencyLevel()[p];
@@ -197,12 +212,21 @@ public class DataCenterBuilder {
             }
             A.getServers().get(i).setIdleConsumption(B.getServers().get(i).getIdleConsumption());
             A.getServers().get(i).setBladeType(B.getServers().get(i).getBladeType());
-            A.getServers().get(i).setServerID(numOfServerSoFar);
-            numOfServerSoFar++;
+            A.getServers().get(i).setServerID(dataCenterPOD.getServerRegistry().register(a, A.getChassisID(), i));
         }
     }
     
+    // the dense rows only live while the file is read, the POD keeps the
+    // matrix in the form RecirculationMatrix.create() picks
     boolean getDmatrix(String DFileName) {
+        final int numberOfChassis = dataCenterPOD.getNumberOfChassis();
+        double[][] D = new double[numberOfChassis][numberOfChassis];
+        boolean complete = readDmatrix(DFileName, D);
+        dataCenterPOD.setRecirculationMatrix(RecirculationMatrix.create(D));
+        return complete;
+    }
+
+    boolean readDmatrix(String DFileName, double[][] D) {
         BufferedReader bis = null;
         try {
             File f = new File(DFileName);
@@ -211,7 +235,7 @@ public class DataCenterBuilder {
             LOGGER.info("Uh oh, got an IOException error!" + e.getMessage());
         }
         
-        final int numberOfChassis = dataCenterPOD.getNumberOfChassis();
+        final int numberOfChassis = D.length;
         for (int k = 0; k < numberOfChassis; k++) {
             try {
                 String line = bis.readLine();
@@ -225,9 +249,9 @@ public class DataCenterBuilder {
                 for (int i = 0; i < numberOfChassis; i++) {
 
                     if (Double.parseDouble(numbers[i]) > 0) {
-                        dataCenterPOD.setD(k, i, 13 * Double.parseDouble(numbers[i]));
+                        D[k][i] = 13 * Double.parseDouble(numbers[i]);
                     } else {
-                        dataCenterPOD.setD(k, i, 0);
+                        D[k][i] = 0;
                     }
                 }
             } catch (IOException ex) {
@@ -6,7 +6,12 @@ import java.util.List;
 public class DataCenterPOD {
     private List<Chassis> chassisSet = new ArrayList<Chassis>();
     private int redTemperature;
-    private double[][] D;
+    private RecirculationMatrix recirculationMatrix;
+    private int[] chassisRanking;
+    // rows of all the servers placed in racks, in server id order
+    private ServerStateTable serverStateTable = new ServerStateTable();
+    private ServerRegistry serverRegistry = new ServerRegistry();
+    private RackIndex rackIndex = new RackIndex();
 
     public List<Chassis> getChassis() {
         return chassisSet;
@@ -20,21 +25,36 @@ public class DataCenterPOD {
         this.redTemperature = redTemperature;
     }
 
-    public double[][] getD() {
-        return D;
+    public RecirculationMatrix getRecirculationMatrix() {
+        return recirculationMatrix;
     }
 
     public void appendChassis(Chassis chassis) {
         chassisSet.add(chassis);
     }
 
-    public void setD(int row, int column, double value) {
-        if (D == null) { //FIXME: there is an order dependency, that is how I'm going to fix this by now
-            final int m = chassisSet.size();
-            D = new double[m][m];
-        }
+    public void setRecirculationMatrix(RecirculationMatrix recirculationMatrix) {
+        this.recirculationMatrix = recirculationMatrix;
+    }
+
+    public int[] getChassisRanking() {
+        return chassisRanking;
+    }
+
+    public void setChassisRanking(int[] chassisRanking) {
+        this.chassisRanking = chassisRanking;
+    }
+
+    public ServerStateTable getServerStateTable() {
+        return serverStateTable;
+    }
+
+    public ServerRegistry getServerRegistry() {
+        return serverRegistry;
+    }
 
-        D[row][column] = value;
+    public RackIndex getRackIndex() {
+        return rackIndex;
     }
 
     public void clearChassis() {
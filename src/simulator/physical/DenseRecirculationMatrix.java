@@ -0,0 +1,50 @@
+package simulator.physical;
+
+/**
+ * D kept row by row in a single array.
+ */
+public class DenseRecirculationMatrix extends RecirculationMatrix {
+
+    private final int m;
+    private final double[] values;
+    private final ThermalKernel kernel = ThermalKernel.getInstance();
+
+    public DenseRecirculationMatrix(double[][] D) {
+        m = D.length;
+        values = new double[m * m];
+        for (int i = 0; i < m; i++) {
+            System.arraycopy(D[i], 0, values, i * m, m);
+        }
+    }
+
+    @Override
+    public int size() {
+        return m;
+    }
+
+    @Override
+    public double get(int row, int column) {
+        return values[row * m + column];
+    }
+
+    @Override
+    public void multiply(double[] power, double[] temperature) {
+        kernel.multiply(values, m, power, temperature);
+    }
+
+    @Override
+    public void addColumn(int column, double delta, double[] temperature) {
+        for (int i = 0, k = column; i < m; i++, k += m) {
+            temperature[i] = temperature[i] + values[k] * delta;
+        }
+    }
+
+    @Override
+    public double columnSum(int column) {
+        double sum = 0;
+        for (int k = column; k < values.length; k += m) {
+            sum = sum + values[k];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,107 @@
+package simulator.physical;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * The node list of an application or a user bundle, indexed by ready state
+ * as nodes come, go and change state. Nodes are added and removed like in
+ * any list; the index keeps list order inside a rank. Adding a node at the
+ * end is O(1); any other change moves the nodes after it, and lays the whole
+ * index out again in O(n).
+ */
+public class IndexedServerList extends AbstractList<BladeServer> implements RandomAccess {
+
+    /**
+     * Rank of a node in the index, see ReadyStateIndex.add().
+     */
+    public interface Ranking {
+        public int rankOf(BladeServer server);
+    }
+
+    private final List<BladeServer> servers = new ArrayList<BladeServer>();
+    private final ReadyStateIndex readyIndex = new ReadyStateIndex();
+    private final Ranking ranking;
+
+    /**
+     * A list whose nodes all have rank 0.
+     */
+    public IndexedServerList() {
+        this(null);
+    }
+
+    public IndexedServerList(Ranking ranking) {
+        this.ranking = ranking;
+    }
+
+    @Override
+    public BladeServer get(int index) {
+        return servers.get(index);
+    }
+
+    @Override
+    public int size() {
+        return servers.size();
+    }
+
+    /**
+     * O(1) at the end of the list, O(n) anywhere else.
+     */
+    @Override
+    public void add(int index, BladeServer server) {
+        if (index == servers.size()) {
+            servers.add(server);
+            readyIndex.add(server, rankOf(server));
+        } else {
+            servers.add(index, server);
+            reindex();
+        }
+        modCount++;
+    }
+
+    /**
+     * O(n), since the whole index is laid out again.
+     */
+    @Override
+    public BladeServer set(int index, BladeServer server) {
+        BladeServer old = servers.set(index, server);
+        reindex();
+        return old;
+    }
+
+    /**
+     * O(n), see ReadyStateIndex.remove().
+     */
+    @Override
+    public BladeServer remove(int index) {
+        BladeServer server = servers.remove(index);
+        readyIndex.remove(index);
+        modCount++;
+        return server;
+    }
+
+    @Override
+    public void clear() {
+        servers.clear();
+        readyIndex.clear();
+        modCount++;
+    }
+
+    public ReadyStateIndex getReadyIndex() {
+        return readyIndex;
+    }
+
+    private int rankOf(BladeServer server) {
+        return ranking == null ? 0 : ranking.rankOf(server);
+    }
+
+    // O(n): every node is indexed again
+    private void reindex() {
+        readyIndex.clear();
+        for (BladeServer server : servers) {
+            readyIndex.add(server, rankOf(server));
+        }
+    }
+}
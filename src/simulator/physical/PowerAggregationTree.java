@@ -0,0 +1,132 @@
+package simulator.physical;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Power totals of the data center kept as a tree: servers are the leaves,
+ * above them their chassis, then racks and the whole data center. A server
+ * whose power changes has its chassis re-summed (a chassis only holds a few
+ * servers, and this keeps the per-chassis values exact) and the difference is
+ * pushed up to the rack and data center, so every total is an O(1) read.
+ * Every RESYNC_PERIOD changes the upper levels are summed again from the
+ * chassis to drop accumulated rounding errors.
+ */
+public class PowerAggregationTree {
+
+    static final int RESYNC_PERIOD = 1 << 16;
+
+    private final List<Chassis> chassisSet;
+    // indexed like chassisSet
+    private final double[] chassisPower;
+    private final int[] rackOfChassis;
+    // first state table row of each chassis when its servers sit in
+    // consecutive rows of one table, -1 otherwise
+    private final int[] firstRow;
+    private final ServerStateTable table;
+    private final ThermalKernel kernel = ThermalKernel.getInstance();
+    // indexed by rack id
+    private final double[] rackPower;
+    private double totalPower = 0;
+    private int updatesSinceResync = 0;
+
+    public PowerAggregationTree(List<Chassis> chassisSet) {
+        this.chassisSet = chassisSet;
+        chassisPower = new double[chassisSet.size()];
+        rackOfChassis = new int[chassisSet.size()];
+        int racks = 0;
+        for (int i = 0; i < chassisSet.size(); i++) {
+            rackOfChassis[i] = chassisSet.get(i).getRackID();
+            racks = Math.max(racks, rackOfChassis[i] + 1);
+        }
+        rackPower = new double[racks];
+        firstRow = new int[chassisSet.size()];
+        table = findStateTable(chassisSet);
+        for (int i = 0; i < chassisSet.size(); i++) {
+            firstRow[i] = contiguousRows(chassisSet.get(i).getServers());
+        }
+        for (int i = 0; i < chassisSet.size(); i++) {
+            for (BladeServer bladeServer : chassisSet.get(i).getServers()) {
+                bladeServer.attachPowerTree(this, i);
+            }
+        }
+        resync();
+    }
+
+    private static ServerStateTable findStateTable(List<Chassis> chassisSet) {
+        for (Chassis chassis : chassisSet) {
+            if (!chassis.getServers().isEmpty()) {
+                return chassis.getServers().get(0).getStateTable();
+            }
+        }
+        return null;
+    }
+
+    private int contiguousRows(List<BladeServer> servers) {
+        if (servers.isEmpty()) {
+            return -1;
+        }
+        int first = servers.get(0).getStateRow();
+        for (int k = 0; k < servers.size(); k++) {
+            if (servers.get(k).getStateTable() != table || servers.get(k).getStateRow() != first + k) {
+                return -1;
+            }
+        }
+        return first;
+    }
+
+    // the servers keep their power rows up to date once attached to the tree
+    private double sumServers(int chassis) {
+        List<BladeServer> servers = chassisSet.get(chassis).getServers();
+        if (firstRow[chassis] >= 0) {
+            return kernel.sum(table.getPowers(), firstRow[chassis], firstRow[chassis] + servers.size());
+        }
+        double pw = 0;
+        for (BladeServer bladeServer : servers) {
+            pw = pw + bladeServer.getPower();
+        }
+        return pw;
+    }
+
+    void serverPowerChanged(int chassis) {
+        // a chassis has few servers, summing them keeps its total exact
+        double pw = sumServers(chassis);
+        double delta = pw - chassisPower[chassis];
+        chassisPower[chassis] = pw;
+        rackPower[rackOfChassis[chassis]] = rackPower[rackOfChassis[chassis]] + delta;
+        totalPower = totalPower + delta;
+        if (++updatesSinceResync >= RESYNC_PERIOD) {
+            resync();
+        }
+    }
+
+    /**
+     * Recomputes every total from the server powers.
+     */
+    public void resync() {
+        Arrays.fill(rackPower, 0);
+        totalPower = 0;
+        for (int i = 0; i < chassisSet.size(); i++) {
+            double pw = 0;
+            for (BladeServer bladeServer : chassisSet.get(i).getServers()) {
+                pw = pw + bladeServer.getPower();
+            }
+            chassisPower[i] = pw;
+            rackPower[rackOfChassis[i]] = rackPower[rackOfChassis[i]] + pw;
+            totalPower = totalPower + pw;
+        }
+        updatesSinceResync = 0;
+    }
+
+    public double getChassisPower(int chassis) {
+        return chassisPower[chassis];
+    }
+
+    public double getRackPower(int rackID) {
+        return rackPower[rackID];
+    }
+
+    public double getTotalPower() {
+        return totalPower;
+    }
+}
@@ -0,0 +1,33 @@
+package simulator.physical;
+
+/**
+ * Running power total of a set of servers outside the rack hierarchy, such as
+ * the compute nodes of one system. Member servers push their power changes
+ * into it, see BladeServer.setPowerGroup(PowerGroup).
+ */
+public class PowerGroup {
+
+    private double power = 0;
+    private int updates = 0;
+
+    public double getPower() {
+        return power;
+    }
+
+    void add(double delta) {
+        power = power + delta;
+        updates++;
+    }
+
+    /**
+     * Number of changes applied since the total was last set exactly.
+     */
+    public int getUpdates() {
+        return updates;
+    }
+
+    public void resync(double exactPower) {
+        power = exactPower;
+        updates = 0;
+    }
+}
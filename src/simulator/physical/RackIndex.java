@@ -0,0 +1,97 @@
+package simulator.physical;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The chassis and the servers of every rack, in placement order, recorded
+ * once while the data center is set up. Each rack also keeps its servers
+ * indexed by ready state and by the rank of their chassis, which makes it a
+ * free list of the servers no system has taken yet, in placement or in rank
+ * order.
+ */
+public class RackIndex {
+
+    private final Map<Integer, Rack> racks = new HashMap<Integer, Rack>();
+
+    private static final class Rack {
+        private final List<Integer> chassis = new ArrayList<Integer>();
+        private final List<Integer> servers = new ArrayList<Integer>();
+        private final ReadyStateIndex readyIndex = new ReadyStateIndex();
+    }
+
+    // position picked by highestRankedUnassigned()
+    private final int[] picked = new int[1];
+
+    /**
+     * Records chassis, placed at chassisIndex of the chassis set, in rack
+     * rackID, with its servers. rank is the rank of the chassis, a
+     * non-negative number.
+     */
+    public void addChassis(int rackID, int chassisIndex, Chassis chassis, int rank) {
+        Rack rack = racks.get(rackID);
+        if (rack == null) {
+            rack = new Rack();
+            racks.put(rackID, rack);
+        }
+        rack.chassis.add(chassisIndex);
+        for (BladeServer bladeServer : chassis.getServers()) {
+            rack.servers.add(bladeServer.getServerID());
+            rack.readyIndex.add(bladeServer, rank);
+        }
+    }
+
+    public boolean contains(int rackID) {
+        return racks.containsKey(rackID);
+    }
+
+    /**
+     * Indexes in the chassis set of the chassis of rackID, empty for an
+     * unknown rack.
+     */
+    public List<Integer> getChassis(int rackID) {
+        Rack rack = racks.get(rackID);
+        return rack == null ? Collections.<Integer> emptyList() : Collections.unmodifiableList(rack.chassis);
+    }
+
+    /**
+     * Ids of the servers of rackID, empty for an unknown rack.
+     */
+    public List<Integer> getServers(int rackID) {
+        Rack rack = racks.get(rackID);
+        return rack == null ? Collections.<Integer> emptyList() : Collections.unmodifiableList(rack.servers);
+    }
+
+    /**
+     * Id of the first server of rackID no system has taken, -1 if there is
+     * none.
+     */
+    public int firstUnassigned(int rackID) {
+        Rack rack = racks.get(rackID);
+        if (rack == null) {
+            return -1;
+        }
+        int position = rack.readyIndex.firstInListOrder(-3);
+        return position < 0 ? -1 : rack.servers.get(position);
+    }
+
+    /**
+     * Id of the first server no system has taken in the highest ranked
+     * chassis of rackID that has one, -1 if there is none.
+     */
+    public int highestRankedUnassigned(int rackID) {
+        Rack rack = racks.get(rackID);
+        if (rack == null || rack.readyIndex.fillFromLast(-3, picked) == 0) {
+            return -1;
+        }
+        return rack.servers.get(picked[0]);
+    }
+
+    public int countUnassigned(int rackID) {
+        Rack rack = racks.get(rackID);
+        return rack == null ? 0 : rack.readyIndex.count(-3);
+    }
+}
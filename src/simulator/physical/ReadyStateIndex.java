@@ -0,0 +1,298 @@
+package simulator.physical;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * The nodes of a system's or a bundle's node list grouped by ready state.
+ * Nodes are kept in a bucket per rank, in list order inside the bucket. Each
+ * ready state is a bitset over the ranks that have a node in it and, in every
+ * bucket, a bitset over its nodes, with a count next to it: counting the nodes
+ * in a state is O(1) and the best nodes are found with
+ * nextSetBit()/previousSetBit() instead of a scan of the list. Ranks are small
+ * non-negative numbers, like chassis ranks, and adding a node is O(1)
+ * whatever its rank. The servers keep the index up to date from setReady().
+ * The free nodes, ready ones that run no batch job, are kept the same way as
+ * if they were one more state; the servers also report when their batch jobs
+ * make them free or not.
+ */
+public class ReadyStateIndex {
+
+    private static final int LOWEST_READY = -3;
+    private static final int HIGHEST_READY = 1;
+    private static final int STATES = HIGHEST_READY - LOWEST_READY + 1;
+    // the free nodes come after the states
+    private static final int FREE = STATES;
+
+    // the nodes of one rank, in list order
+    private static final class Bucket {
+        private final BitSet[] byReady = new BitSet[STATES + 1];
+        private final int[] counts = new int[STATES + 1];
+        // no node before this one is in the state, so first() starts here
+        private final int[] firstFrom = new int[STATES + 1];
+        private int[] positions = new int[4];
+        private int size = 0;
+
+        Bucket() {
+            for (int i = 0; i <= STATES; i++) {
+                byReady[i] = new BitSet();
+            }
+        }
+
+        void clear() {
+            for (int i = 0; i <= STATES; i++) {
+                byReady[i].clear();
+            }
+            Arrays.fill(counts, 0);
+            Arrays.fill(firstFrom, 0);
+            size = 0;
+        }
+    }
+
+    // per state, the ranks whose bucket has a node in it
+    private final BitSet[] ranksWith = new BitSet[STATES + 1];
+    private final int[] counts = new int[STATES + 1];
+    private Bucket[] buckets = new Bucket[1];
+    // servers, their ranks and their place in the bucket by position in the
+    // node list
+    private final List<BladeServer> servers = new ArrayList<BladeServer>();
+    private int[] ranks = new int[16];
+    private int[] offsets = new int[16];
+
+    public ReadyStateIndex() {
+        for (int i = 0; i <= STATES; i++) {
+            ranksWith[i] = new BitSet();
+        }
+    }
+
+    /**
+     * Indexes server at the next position, which has to match its position in
+     * the node list. Lower ranks come first. O(1) amortized.
+     */
+    public void add(BladeServer server, int rank) {
+        if (rank < 0) {
+            throw new IllegalArgumentException("Rank: " + rank);
+        }
+        int position = servers.size();
+        if (position == ranks.length) {
+            ranks = Arrays.copyOf(ranks, 2 * position);
+            offsets = Arrays.copyOf(offsets, 2 * position);
+        }
+        servers.add(server);
+        ranks[position] = rank;
+        server.attachReadyIndex(this, position);
+        place(position);
+    }
+
+    // appends the node at position to the bucket of its rank
+    private void place(int position) {
+        BladeServer server = servers.get(position);
+        int rank = ranks[position];
+        if (rank >= buckets.length) {
+            buckets = Arrays.copyOf(buckets, Math.max(rank + 1, 2 * buckets.length));
+        }
+        if (buckets[rank] == null) {
+            buckets[rank] = new Bucket();
+        }
+        Bucket bucket = buckets[rank];
+        if (bucket.size == bucket.positions.length) {
+            bucket.positions = Arrays.copyOf(bucket.positions, 2 * bucket.size);
+        }
+        offsets[position] = bucket.size;
+        bucket.positions[bucket.size++] = position;
+        entered(rank, bucket, server.getReady() - LOWEST_READY, offsets[position]);
+        if (server.isFree()) {
+            entered(rank, bucket, FREE, offsets[position]);
+        }
+    }
+
+    /**
+     * Drops the node at position; the nodes after it move up one position,
+     * as they do in the node list. O(n), since every bucket is laid out again.
+     */
+    public BladeServer remove(int position) {
+        BladeServer server = servers.remove(position);
+        server.detachReadyIndex(this);
+        int size = servers.size();
+        System.arraycopy(ranks, position + 1, ranks, position, size - position);
+        for (int moved = position; moved < size; moved++) {
+            servers.get(moved).attachReadyIndex(this, moved);
+        }
+        relayout();
+        return server;
+    }
+
+    public void clear() {
+        for (BladeServer server : servers) {
+            server.detachReadyIndex(this);
+        }
+        servers.clear();
+        relayout();
+    }
+
+    // places every node again after one left
+    private void relayout() {
+        for (int i = 0; i <= STATES; i++) {
+            ranksWith[i].clear();
+        }
+        Arrays.fill(counts, 0);
+        for (Bucket bucket : buckets) {
+            if (bucket != null) {
+                bucket.clear();
+            }
+        }
+        for (int position = 0; position < servers.size(); position++) {
+            place(position);
+        }
+    }
+
+    void readyChanged(int position, int oldReady, int newReady) {
+        int rank = ranks[position];
+        Bucket bucket = buckets[rank];
+        left(rank, bucket, oldReady - LOWEST_READY, offsets[position]);
+        entered(rank, bucket, newReady - LOWEST_READY, offsets[position]);
+        // the batch jobs did not change, only whether the node is ready
+        if (servers.get(position).getActiveBatchList().isEmpty()) {
+            if (oldReady == HIGHEST_READY) {
+                left(rank, bucket, FREE, offsets[position]);
+            } else if (newReady == HIGHEST_READY) {
+                entered(rank, bucket, FREE, offsets[position]);
+            }
+        }
+    }
+
+    void freeChanged(int position, boolean free) {
+        int rank = ranks[position];
+        if (free) {
+            entered(rank, buckets[rank], FREE, offsets[position]);
+        } else {
+            left(rank, buckets[rank], FREE, offsets[position]);
+        }
+    }
+
+    private void left(int rank, Bucket bucket, int state, int offset) {
+        bucket.byReady[state].clear(offset);
+        if (--bucket.counts[state] == 0) {
+            ranksWith[state].clear(rank);
+        }
+        counts[state]--;
+    }
+
+    private void entered(int rank, Bucket bucket, int state, int offset) {
+        bucket.byReady[state].set(offset);
+        if (bucket.counts[state]++ == 0) {
+            ranksWith[state].set(rank);
+        }
+        counts[state]++;
+        bucket.firstFrom[state] = Math.min(bucket.firstFrom[state], offset);
+    }
+
+    public int size() {
+        return servers.size();
+    }
+
+    public int count(int ready) {
+        return counts[ready - LOWEST_READY];
+    }
+
+    /**
+     * Number of ready nodes that run no batch job, see BladeServer.isFree().
+     */
+    public int countFree() {
+        return counts[FREE];
+    }
+
+    /**
+     * Position of the lowest ranked node in ready, -2 if there is none.
+     */
+    public int first(int ready) {
+        int state = ready - LOWEST_READY;
+        int rank = ranksWith[state].nextSetBit(0);
+        if (rank < 0) {
+            return -2;
+        }
+        Bucket bucket = buckets[rank];
+        int offset = bucket.byReady[state].nextSetBit(bucket.firstFrom[state]);
+        bucket.firstFrom[state] = offset;
+        return bucket.positions[offset];
+    }
+
+    /**
+     * Position of the node in ready that comes first in the node list, -2 if
+     * there is none. Looks at the first such node of every rank, so it is
+     * O(ranks).
+     */
+    public int firstInListOrder(int ready) {
+        int state = ready - LOWEST_READY;
+        int first = -2;
+        for (int rank = ranksWith[state].nextSetBit(0); rank >= 0; rank = ranksWith[state].nextSetBit(rank + 1)) {
+            Bucket bucket = buckets[rank];
+            int offset = bucket.byReady[state].nextSetBit(bucket.firstFrom[state]);
+            bucket.firstFrom[state] = offset;
+            if (first < 0 || bucket.positions[offset] < first) {
+                first = bucket.positions[offset];
+            }
+        }
+        return first;
+    }
+
+    /**
+     * Fills positions with nodes in ready starting from the highest rank; nodes
+     * of the same rank come in list order. Returns how many were filled.
+     */
+    public int fillFromLast(int ready, int[] positions) {
+        return fillFromLastIn(ready - LOWEST_READY, positions);
+    }
+
+    /**
+     * fillFromLast(int, int[]) over the free nodes.
+     */
+    public int fillFreeFromLast(int[] positions) {
+        return fillFromLastIn(FREE, positions);
+    }
+
+    private int fillFromLastIn(int state, int[] positions) {
+        int filled = 0;
+        for (int rank = ranksWith[state].previousSetBit(buckets.length - 1); rank >= 0
+                && filled < positions.length; rank = ranksWith[state].previousSetBit(rank - 1)) {
+            filled = fill(buckets[rank], state, positions, filled);
+        }
+        return filled;
+    }
+
+    /**
+     * Fills positions with nodes in ready starting from the lowest rank.
+     * Returns how many were filled.
+     */
+    public int fillFromFirst(int ready, int[] positions) {
+        return fillFromFirstIn(ready - LOWEST_READY, positions);
+    }
+
+    /**
+     * fillFromFirst(int, int[]) over the free nodes.
+     */
+    public int fillFreeFromFirst(int[] positions) {
+        return fillFromFirstIn(FREE, positions);
+    }
+
+    private int fillFromFirstIn(int state, int[] positions) {
+        int filled = 0;
+        for (int rank = ranksWith[state].nextSetBit(0); rank >= 0
+                && filled < positions.length; rank = ranksWith[state].nextSetBit(rank + 1)) {
+            filled = fill(buckets[rank], state, positions, filled);
+        }
+        return filled;
+    }
+
+    // adds the nodes of bucket in the state, in list order, after filled
+    private static int fill(Bucket bucket, int state, int[] positions, int filled) {
+        BitSet nodes = bucket.byReady[state];
+        for (int offset = nodes.nextSetBit(bucket.firstFrom[state]); offset >= 0
+                && filled < positions.length; offset = nodes.nextSetBit(offset + 1)) {
+            positions[filled++] = bucket.positions[offset];
+        }
+        return filled;
+    }
+}
@@ -0,0 +1,73 @@
+package simulator.physical;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Heat recirculation coefficients D of the thermal model: the inlet
+ * temperature rise of chassis i is sum over j of D[i][j] * power of chassis j.
+ */
+public abstract class RecirculationMatrix {
+
+    /**
+     * Above this fraction of non-zero coefficients the dense form is cheaper
+     * than following the CSR column indexes.
+     */
+    public static final double SPARSE_DENSITY = 0.3;
+
+    /**
+     * Picks the sparse form when few enough coefficients are non-zero.
+     */
+    public static RecirculationMatrix create(double[][] D) {
+        long cells = (long) D.length * D.length;
+        if (cells > 0 && SparseRecirculationMatrix.countNonZeros(D) <= SPARSE_DENSITY * cells) {
+            return new SparseRecirculationMatrix(D);
+        }
+        return new DenseRecirculationMatrix(D);
+    }
+
+    public abstract int size();
+
+    public abstract double get(int row, int column);
+
+    /**
+     * temperature = D * power. Both arrays hold one entry per chassis.
+     */
+    public abstract void multiply(double[] power, double[] temperature);
+
+    /**
+     * temperature += D[.][column] * delta, i.e. the effect of chassis column
+     * changing its power by delta.
+     */
+    public abstract void addColumn(int column, double delta, double[] temperature);
+
+    /**
+     * Total inlet temperature rise caused by one watt drawn in chassis column.
+     */
+    public abstract double columnSum(int column);
+
+    /**
+     * Chassis ordered from the one recirculating the most heat into the
+     * others to the one recirculating the least; ties keep chassis order.
+     */
+    public int[] rankByRecirculation() {
+        int m = size();
+        final double[] sums = new double[m];
+        Integer[] order = new Integer[m];
+        for (int j = 0; j < m; j++) {
+            sums[j] = columnSum(j);
+            order[j] = j;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return Double.compare(sums[b], sums[a]);
+            }
+        });
+        int[] ranking = new int[m];
+        for (int k = 0; k < m; k++) {
+            ranking[k] = order[k];
+        }
+        return ranking;
+    }
+}
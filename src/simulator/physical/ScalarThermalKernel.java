@@ -0,0 +1,44 @@
+package simulator.physical;
+
+/**
+ * Thermal loops in plain Java, summing in index order.
+ */
+public class ScalarThermalKernel extends ThermalKernel {
+
+    @Override
+    public String getName() {
+        return "scalar";
+    }
+
+    @Override
+    public void multiply(double[] values, int m, double[] power, double[] temperature) {
+        int k = 0;
+        for (int i = 0; i < m; i++) {
+            double sum = 0;
+            for (int j = 0; j < m; j++) {
+                sum = sum + values[k++] * power[j];
+            }
+            temperature[i] = sum;
+        }
+    }
+
+    @Override
+    public double max(double[] values, int n) {
+        double max = values[0];
+        for (int i = 1; i < n; i++) {
+            if (max < values[i]) {
+                max = values[i];
+            }
+        }
+        return max;
+    }
+
+    @Override
+    public double sum(double[] values, int from, int to) {
+        double sum = 0;
+        for (int i = from; i < to; i++) {
+            sum = sum + values[i];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,66 @@
+package simulator.physical;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Every server placed in the data center under a dense id, from 0 in
+ * placement order, with where it sits: its chassis (index in the chassis
+ * set), its slot in that chassis and its rack. Chassis may hold different
+ * numbers of servers.
+ */
+public class ServerRegistry {
+
+    private final List<BladeServer> servers = new ArrayList<BladeServer>();
+    private int[] chassisIndexes = new int[16];
+    private int[] slots = new int[16];
+
+    /**
+     * Registers server as slot slot of chassis chassisIndex and returns its
+     * id.
+     */
+    public int register(BladeServer server, int chassisIndex, int slot) {
+        int id = servers.size();
+        if (id == slots.length) {
+            chassisIndexes = Arrays.copyOf(chassisIndexes, 2 * id);
+            slots = Arrays.copyOf(slots, 2 * id);
+        }
+        servers.add(server);
+        chassisIndexes[id] = chassisIndex;
+        slots[id] = slot;
+        return id;
+    }
+
+    public int size() {
+        return servers.size();
+    }
+
+    public BladeServer getServer(int id) {
+        return servers.get(id);
+    }
+
+    public int getChassisIndex(int id) {
+        checkId(id);
+        return chassisIndexes[id];
+    }
+
+    public int getSlot(int id) {
+        checkId(id);
+        return slots[id];
+    }
+
+    public int getRackID(int id) {
+        return servers.get(id).getRackId();
+    }
+
+    public boolean contains(int id) {
+        return id >= 0 && id < servers.size();
+    }
+
+    private void checkId(int id) {
+        if (!contains(id)) {
+            throw new IndexOutOfBoundsException("Server id: " + id + ", servers: " + servers.size());
+        }
+    }
+}
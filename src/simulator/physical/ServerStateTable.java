@@ -0,0 +1,135 @@
+package simulator.physical;
+
+import java.util.Arrays;
+
+/**
+ * Per-server state that is scanned every tick, kept in parallel primitive
+ * arrays with one row per server. A BladeServer only holds its row number and
+ * reads and writes the columns through this table, so scans over many servers
+ * walk contiguous arrays instead of one object per server.
+ */
+public class ServerStateTable {
+
+    /** Frequency level not looked up yet since the last MIPS change. */
+    public static final int UNKNOWN_LEVEL = -2;
+
+    private int size = 0;
+    private int[] ready;
+    private double[] mips;
+    private int[] frequencyLevel;
+    private double[] currentCPU;
+    private int[] chassisID;
+    private int[] rackID;
+    // getPower() of the row, valid while powerValid is set
+    private double[] power;
+    private boolean[] powerValid;
+
+    public ServerStateTable() {
+        this(16);
+    }
+
+    public ServerStateTable(int capacity) {
+        capacity = Math.max(capacity, 1);
+        ready = new int[capacity];
+        mips = new double[capacity];
+        frequencyLevel = new int[capacity];
+        currentCPU = new double[capacity];
+        chassisID = new int[capacity];
+        rackID = new int[capacity];
+        power = new double[capacity];
+        powerValid = new boolean[capacity];
+    }
+
+    /**
+     * Appends a zeroed row and returns its index.
+     */
+    public int addRow() {
+        if (size == ready.length) {
+            int capacity = 2 * size;
+            ready = Arrays.copyOf(ready, capacity);
+            mips = Arrays.copyOf(mips, capacity);
+            frequencyLevel = Arrays.copyOf(frequencyLevel, capacity);
+            currentCPU = Arrays.copyOf(currentCPU, capacity);
+            chassisID = Arrays.copyOf(chassisID, capacity);
+            rackID = Arrays.copyOf(rackID, capacity);
+            power = Arrays.copyOf(power, capacity);
+            powerValid = Arrays.copyOf(powerValid, capacity);
+        }
+        frequencyLevel[size] = UNKNOWN_LEVEL;
+        return size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getReady(int row) {
+        return ready[row];
+    }
+
+    public void setReady(int row, int value) {
+        ready[row] = value;
+    }
+
+    public double getMips(int row) {
+        return mips[row];
+    }
+
+    public void setMips(int row, double value) {
+        mips[row] = value;
+    }
+
+    public int getFrequencyLevel(int row) {
+        return frequencyLevel[row];
+    }
+
+    public void setFrequencyLevel(int row, int value) {
+        frequencyLevel[row] = value;
+    }
+
+    public double getCurrentCPU(int row) {
+        return currentCPU[row];
+    }
+
+    public void setCurrentCPU(int row, double value) {
+        currentCPU[row] = value;
+    }
+
+    public int getChassisID(int row) {
+        return chassisID[row];
+    }
+
+    public void setChassisID(int row, int value) {
+        chassisID[row] = value;
+    }
+
+    public int getRackID(int row) {
+        return rackID[row];
+    }
+
+    public void setRackID(int row, int value) {
+        rackID[row] = value;
+    }
+
+    public boolean isPowerValid(int row) {
+        return powerValid[row];
+    }
+
+    public double getPower(int row) {
+        return power[row];
+    }
+
+    public void setPower(int row, double value) {
+        power[row] = value;
+        powerValid[row] = true;
+    }
+
+    // the power column itself, for summing a range of rows
+    double[] getPowers() {
+        return power;
+    }
+
+    public void invalidatePower(int row) {
+        powerValid[row] = false;
+    }
+}
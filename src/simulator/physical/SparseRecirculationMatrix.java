@@ -0,0 +1,111 @@
+package simulator.physical;
+
+/**
+ * D in compressed sparse row form: only the non-zero coefficients are kept,
+ * so a product costs O(nnz) instead of O(m^2).
+ */
+public class SparseRecirculationMatrix extends RecirculationMatrix {
+
+    private final int m;
+    // row i occupies [rowStart[i], rowStart[i + 1]) of columns and values
+    private final int[] rowStart;
+    private final int[] columns;
+    private final double[] values;
+    // the same coefficients by column, for addColumn()
+    private final int[] columnStart;
+    private final int[] rows;
+    private final double[] columnValues;
+
+    public SparseRecirculationMatrix(double[][] D) {
+        m = D.length;
+        rowStart = new int[m + 1];
+        int nnz = countNonZeros(D);
+        columns = new int[nnz];
+        values = new double[nnz];
+        int k = 0;
+        for (int i = 0; i < m; i++) {
+            rowStart[i] = k;
+            for (int j = 0; j < m; j++) {
+                if (D[i][j] != 0) {
+                    columns[k] = j;
+                    values[k] = D[i][j];
+                    k++;
+                }
+            }
+        }
+        rowStart[m] = k;
+        columnStart = new int[m + 1];
+        rows = new int[nnz];
+        columnValues = new double[nnz];
+        k = 0;
+        for (int j = 0; j < m; j++) {
+            columnStart[j] = k;
+            for (int i = 0; i < m; i++) {
+                if (D[i][j] != 0) {
+                    rows[k] = i;
+                    columnValues[k] = D[i][j];
+                    k++;
+                }
+            }
+        }
+        columnStart[m] = k;
+    }
+
+    static int countNonZeros(double[][] D) {
+        int nnz = 0;
+        for (double[] row : D) {
+            for (double value : row) {
+                if (value != 0) {
+                    nnz++;
+                }
+            }
+        }
+        return nnz;
+    }
+
+    public int getNumberOfNonZeros() {
+        return values.length;
+    }
+
+    @Override
+    public int size() {
+        return m;
+    }
+
+    @Override
+    public double get(int row, int column) {
+        for (int k = rowStart[row]; k < rowStart[row + 1]; k++) {
+            if (columns[k] == column) {
+                return values[k];
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public void multiply(double[] power, double[] temperature) {
+        for (int i = 0; i < m; i++) {
+            double sum = 0;
+            for (int k = rowStart[i]; k < rowStart[i + 1]; k++) {
+                sum = sum + values[k] * power[columns[k]];
+            }
+            temperature[i] = sum;
+        }
+    }
+
+    @Override
+    public void addColumn(int column, double delta, double[] temperature) {
+        for (int k = columnStart[column]; k < columnStart[column + 1]; k++) {
+            temperature[rows[k]] = temperature[rows[k]] + columnValues[k] * delta;
+        }
+    }
+
+    @Override
+    public double columnSum(int column) {
+        double sum = 0;
+        for (int k = columnStart[column]; k < columnStart[column + 1]; k++) {
+            sum = sum + columnValues[k];
+        }
+        return sum;
+    }
+}
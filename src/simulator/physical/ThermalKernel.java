@@ -0,0 +1,55 @@
+package simulator.physical;
+
+import java.util.logging.Logger;
+
+/**
+ * The array loops of the thermal stage: the dense D * power product, the
+ * hottest inlet and power sums. When VectorThermalKernel, from the
+ * src-vector source root, was compiled in and the jdk.incubator.vector module
+ * is available they run on SIMD lanes, otherwise on plain scalar code.
+ */
+public abstract class ThermalKernel {
+
+    private static final Logger LOGGER = Logger.getLogger(ThermalKernel.class.getName());
+
+    private static ThermalKernel instance;
+
+    public static synchronized ThermalKernel getInstance() {
+        if (instance == null) {
+            instance = create();
+        }
+        return instance;
+    }
+
+    // the vector kernel is only there if it was built from src-vector, and
+    // only links if its module was added to the JVM
+    private static ThermalKernel create() {
+        try {
+            Class<?> vectorKernel = Class.forName("simulator.physical.VectorThermalKernel");
+            ThermalKernel kernel = (ThermalKernel) vectorKernel.getDeclaredConstructor().newInstance();
+            LOGGER.info("Thermal kernel: " + kernel.getName());
+            return kernel;
+        } catch (ReflectiveOperationException | LinkageError ex) {
+            LOGGER.info("Thermal kernel: scalar, the vector kernel or jdk.incubator.vector is not available");
+            return new ScalarThermalKernel();
+        }
+    }
+
+    public abstract String getName();
+
+    /**
+     * temperature = D * power, with D of size m x m stored row by row in
+     * values.
+     */
+    public abstract void multiply(double[] values, int m, double[] power, double[] temperature);
+
+    /**
+     * Largest of values[0, n), n has to be at least 1.
+     */
+    public abstract double max(double[] values, int n);
+
+    /**
+     * Sum of values[from, to).
+     */
+    public abstract double sum(double[] values, int from, int to);
+}
@@ -9,7 +9,9 @@ import java.util.List;
 import simulator.Environment;
 import simulator.physical.BladeServer;
 import simulator.physical.DataCenter;
+import simulator.physical.ReadyStateIndex;
 import simulator.system.EnterpriseSystem;
+import simulator.system.GeneralSystem;
 import simulator.system.InteractiveSystem;
 
 /**
@@ -33,6 +35,22 @@ public class FirstFit extends ResourceAllocation {
         return -2;
     }
 
+    // first free server of the first rack that has one, as nextServerSys()
+    // would find it in the chassis of the racks
+    @Override
+    public int[] nextServerInRacks(List<Integer> rackIDs) {
+        int[] retValue = { -2, -2 };
+        for (int rackID : rackIDs) {
+            int serverID = dataCenter.getRackIndex().firstUnassigned(rackID);
+            if (serverID >= 0) {
+                retValue[0] = dataCenter.getServerRegistry().getChassisIndex(serverID);
+                retValue[1] = dataCenter.getServerRegistry().getSlot(serverID);
+                return retValue;
+            }
+        }
+        return retValue;
+    }
+
     @Override
     public int[] nextServerSys(List<Integer> chassisList) {
         int[] retValue = new int[2];
@@ -81,6 +99,20 @@ public class FirstFit extends ResourceAllocation {
         return list;
     }
 
+    @Override
+    public int[] allocateSystemLevelServer(GeneralSystem system, int list[]) {
+        for (int i = 0; i < list.length; i++) {
+            list[i] = -2;
+        }
+        // every node has the same rank here, so the index is in list order
+        ReadyStateIndex readyIndex = system.getReadyIndex();
+        if (readyIndex.count(1) < list.length) {
+            return list; // there is not enought ready node to accept this job
+        }
+        readyIndex.fillFromFirst(1, list);
+        return list;
+    }
+
     @Override
     public void resourceAloc(InteractiveSystem WS) {
         // ToDo
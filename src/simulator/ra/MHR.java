@@ -4,12 +4,17 @@
  */
 package simulator.ra;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 
 import simulator.Environment;
 import simulator.physical.BladeServer;
 import simulator.physical.DataCenter;
+import simulator.physical.ReadyStateIndex;
 import simulator.system.EnterpriseSystem;
+import simulator.system.GeneralSystem;
 import simulator.system.InteractiveSystem;
 
 /**
@@ -22,35 +27,61 @@ public class MHR extends ResourceAllocation {
         super(environment, dataCenter);
     }
 
-    int[] powIndex = { 15, 31, 16, 11, 36, 10, 30, 6, 20, 21, 35, 32, 17, 26, 25, 7, 27, 12, 42, 37, 41, 5, 2, 1, 0, 22,
-            40, 47, 46, 13, 45, 29, 23, 8, 28, 43, 48, 9, 38, 33, 18, 3, 34, 44, 24, 14, 49, 19, 39, 4 };
+    // chassis from the most to the least heat recirculating; the servers with
+    // the least recirculation are given to the HPC systems first
+    @Override
+    public int getNodeRank(BladeServer server) {
+        return dataCenter.getChassisRank(server.getChassisID());
+    }
 
     @Override
     public int nextServer(List<BladeServer> bs) {
-        int i = 0, j = 0;
-        for (i = 0; i < powIndex.length; i++) {
-            for (j = 0; j < bs.size(); j++) {
-                if (bs.get(j).getReady() == 1 && powIndex[i] == bs.get(j).getChassisID()) {
-                    return j;
+        return lowestRanked(bs, 1);
+    }
+
+    @Override
+    public int nextServerInSys(List<BladeServer> bs) {
+        return lowestRanked(bs, -2);
+    }
+
+    @Override
+    public int nextServerInSys(GeneralSystem system) {
+        return system.getReadyIndex().first(-2);
+    }
+
+    private int lowestRanked(List<BladeServer> bs, int ready) {
+        int index = -2;
+        int lowestRank = Integer.MAX_VALUE;
+        for (int j = 0; j < bs.size(); j++) {
+            if (bs.get(j).getReady() == ready) {
+                int rank = getNodeRank(bs.get(j));
+                if (rank < lowestRank) {
+                    lowestRank = rank;
+                    index = j;
                 }
             }
-
         }
-        return -2;
+        return index;
     }
 
+    // the free server nextServerSys() would pick from the chassis of the
+    // racks: the first one of the highest ranked chassis that has one
     @Override
-    public int nextServerInSys(List<BladeServer> bs) {
-        int i = 0, j = 0;
-        for (i = 0; i < powIndex.length; i++) {
-            for (j = 0; j < bs.size(); j++) {
-                if (bs.get(j).getReady() == -2 && powIndex[i] == bs.get(j).getChassisID()) {
-                    return j;
+    public int[] nextServerInRacks(List<Integer> rackIDs) {
+        int[] retValue = { -2, -2 };
+        int bestRank = -1;
+        for (int rackID : rackIDs) {
+            int serverID = dataCenter.getRackIndex().highestRankedUnassigned(rackID);
+            if (serverID >= 0) {
+                int chassis = dataCenter.getServerRegistry().getChassisIndex(serverID);
+                if (dataCenter.getChassisRank(chassis) > bestRank) {
+                    bestRank = dataCenter.getChassisRank(chassis);
+                    retValue[0] = chassis;
+                    retValue[1] = dataCenter.getServerRegistry().getSlot(serverID);
                 }
             }
-
         }
-        return -2;
+        return retValue;
     }
 
     @Override
@@ -59,20 +90,19 @@ public class MHR extends ResourceAllocation {
         retValue[0] = -2;
         retValue[1] = -2;
 
-        ////////////////////////
-        for (int j = powIndex.length - 1; j >= 0; j--) {
-            int l = 0;
-            for (l = 0; l < chassisList.size(); l++) {
-                if (powIndex[j] == chassisList.get(l)) {
-                    break;
-                }
-            }
-            if (l != chassisList.size()) // in found chassis looking for a ready
+        int[] ranking = dataCenter.getChassisRanking();
+        boolean[] inList = new boolean[ranking.length];
+        for (int chassis : chassisList) {
+            inList[chassis] = true;
+        }
+        for (int j = ranking.length - 1; j >= 0; j--) {
+            if (inList[ranking[j]]) // in found chassis looking for a ready
             // server
             {
-                for (int k = 0; k < dataCenter.getChassisSet().get(chassisList.get(l)).getServers().size(); k++) {
-                    if (dataCenter.getChassisSet().get(chassisList.get(l)).getServers().get(k).getReady() == -3) {
-                        retValue[0] = chassisList.get(l); // chassis id
+                List<BladeServer> servers = dataCenter.getChassisSet().get(ranking[j]).getServers();
+                for (int k = 0; k < servers.size(); k++) {
+                    if (servers.get(k).getReady() == -3) {
+                        retValue[0] = ranking[j]; // chassis id
                         retValue[1] = k; // Server ID
                         return retValue;
                     }
@@ -86,36 +116,57 @@ public class MHR extends ResourceAllocation {
 
     @Override
     public int[] allocateSystemLevelServer(List<BladeServer> ComputeNodeList, int list[]) {
-        int j = 0, i = 0;
-        int totalReadyNodes = 0;
-        for (i = 0; i < list.length; i++) {
+        for (int i = 0; i < list.length; i++) {
             list[i] = -2;
         }
+        List<Integer> readyNodes = new ArrayList<Integer>();
         for (int k = 0; k < ComputeNodeList.size(); k++) {
             if (ComputeNodeList.get(k).getReady() == 1) {
-                totalReadyNodes++;
+                readyNodes.add(k);
             }
         }
-        if (totalReadyNodes < list.length) {
+        if (readyNodes.size() < list.length) {
             return list; // there is not enought ready node to accept this job
-        } // in CS which compute node is ready just save its index
-        i = 0;
-        j = 0;
-        int k = powIndex.length - 1;
-        for (; k >= 0 && j < list.length; k--) {
-            for (i = 0; i < ComputeNodeList.size(); i++) {
-                if (ComputeNodeList.get(i).getReady() == 1 && powIndex[k] == ComputeNodeList.get(i).getChassisID()) // &
-                // ComputeNodeList.get(i).activeBatchList.size()==0)
-                {
-                    list[j++] = i;
-                    if (j == list.length) {
-                        break;
-                    }
-                }
+        }
+        final List<BladeServer> nodes = ComputeNodeList;
+        // highest rank first, list order inside a chassis
+        Collections.sort(readyNodes, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                int byRank = getNodeRank(nodes.get(b)) - getNodeRank(nodes.get(a));
+                return byRank != 0 ? byRank : a - b;
             }
+        });
+        for (int j = 0; j < list.length; j++) {
+            list[j] = readyNodes.get(j);
         }
-        // }
+        return list;
+    }
 
+    @Override
+    public int[] allocateSystemLevelServer(GeneralSystem system, int list[]) {
+        for (int i = 0; i < list.length; i++) {
+            list[i] = -2;
+        }
+        ReadyStateIndex readyIndex = system.getReadyIndex();
+        if (readyIndex.count(1) < list.length) {
+            return list; // there is not enought ready node to accept this job
+        }
+        readyIndex.fillFromLast(1, list);
+        return list;
+    }
+
+    // the free nodes in the order allocateSystemLevelServer() gives ready ones
+    @Override
+    public int[] allocateFreeServer(GeneralSystem system, int list[]) {
+        for (int i = 0; i < list.length; i++) {
+            list[i] = -2;
+        }
+        ReadyStateIndex readyIndex = system.getReadyIndex();
+        if (readyIndex.countFree() < list.length) {
+            return list;
+        }
+        readyIndex.fillFreeFromLast(list);
         return list;
     }
 
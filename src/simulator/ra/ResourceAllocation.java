@@ -6,11 +6,13 @@ import java.util.logging.Logger;
 
 import simulator.Environment;
 import simulator.physical.BladeServer;
-import simulator.physical.Chassis;
 import simulator.physical.DataCenter;
+import simulator.physical.ReadyStateIndex;
+import simulator.physical.ServerRegistry;
 import simulator.system.ComputeSystem;
 import simulator.system.EnterpriseApp;
 import simulator.system.EnterpriseSystem;
+import simulator.system.GeneralSystem;
 import simulator.system.InteractiveSystem;
 import simulator.system.InteractiveUser;
 
@@ -29,6 +31,14 @@ public abstract class ResourceAllocation {
         return 0;
     }
 
+    /**
+     * Chassis and slot of the unassigned server to give next to a system on
+     * the racks rackIDs, {-2, -2} if they have none left.
+     */
+    public int[] nextServerInRacks(List<Integer> rackIDs) {
+        return nextServerSys(createChassisArray(rackIDs));
+    }
+
     public int nextServer(List<BladeServer> bladeList) {
         return 0;
     }
@@ -37,6 +47,38 @@ public abstract class ResourceAllocation {
         return null;
     }
 
+    public int nextServerInSys(GeneralSystem system) {
+        return nextServerInSys(system.getComputeNodeList());
+    }
+
+    public int[] allocateSystemLevelServer(GeneralSystem system, int list[]) {
+        return allocateSystemLevelServer(system.getComputeNodeList(), list);
+    }
+
+    /**
+     * Like allocateSystemLevelServer(GeneralSystem, int[]), but only with the
+     * ready nodes that run no batch job, in the order of the system's index.
+     */
+    public int[] allocateFreeServer(GeneralSystem system, int list[]) {
+        for (int i = 0; i < list.length; i++) {
+            list[i] = -2;
+        }
+        ReadyStateIndex readyIndex = system.getReadyIndex();
+        if (readyIndex.countFree() < list.length) {
+            return list;
+        }
+        readyIndex.fillFreeFromFirst(list);
+        return list;
+    }
+
+    /**
+     * Order in which a system indexes its nodes, lower first. By default
+     * nodes keep the order they were added in.
+     */
+    public int getNodeRank(BladeServer server) {
+        return 0;
+    }
+
     public ResourceAllocation(Environment environment, DataCenter dataCenter) {
         this.environment = environment;
         this.dataCenter = dataCenter;
@@ -59,9 +101,8 @@ public abstract class ResourceAllocation {
         // LOGGER.info("in releaseing resource "+difference);
         for (int j = 0; j < difference; j++) {
             int indexServer = ES.getApplications().get(0).getComputeNodeList().get(difference - j).getServerID();
-            int indexChassis = ES.getApplications().get(0).getComputeNodeList().get(difference - j).getChassisID();
             ES.getApplications().get(0).removeCompNodeFromBundle(
-                    dataCenter.getServer(indexChassis, findServerInChasis(indexChassis, indexServer)));
+                    dataCenter.getServer(indexServer));
             // ES.getApplications().get(0).ComputeNodeIndex.remove(difference-j);///////
             // not exactly correct
             ES.setNumberofIdleNode(ES.getNumberofIdleNode() + 1);
@@ -79,10 +120,8 @@ public abstract class ResourceAllocation {
                         return;
                     }
                     int indexServer = ES.getApplications().get(i).getComputeNodeList().get(indexi).getServerID();
-                    int indexChassis = ES.getApplications().get(i).getComputeNodeList().get(indexi).getChassisID();
                     ES.getApplications().get(i).getComputeNodeList().remove(indexi);
-                    final BladeServer server = dataCenter.getServer(indexChassis,
-                            findServerInChasis(indexChassis, indexServer));
+                    final BladeServer server = dataCenter.getServer(indexServer);
                     server.setReady(-2);
                     server.setSLAPercentage(0);
                     server.setTimeTreshold(0);
@@ -102,7 +141,7 @@ public abstract class ResourceAllocation {
         for (int i = 0; i < alocVectr.length; i++) {
             if (alocVectr[i] >= 1) {
                 for (int ii = 0; ii < alocVectr[i]; ii++) {
-                    int indexInComputeList = nextServerInSys(ES.getComputeNodeList());
+                    int indexInComputeList = nextServerInSys(ES);
                     if (indexInComputeList == -2) {
                         // LOGGER.info("nashod alocate konim! for this
                         // application ->"+i +"\tsize quueue 0->"+
@@ -110,9 +149,7 @@ public abstract class ResourceAllocation {
                         ES.getAM().getRecForCoop()[i] = 1;
                     } else {
                         int indexServer = ES.getComputeNodeList().get(indexInComputeList).getServerID();
-                        int indexChassis = ES.getComputeNodeList().get(indexInComputeList).getChassisID();
-                        final BladeServer server = dataCenter.getServer(indexChassis,
-                                findServerInChasis(indexChassis, indexServer));
+                        final BladeServer server = dataCenter.getServer(indexServer);
                         ES.getApplications().get(i).addCompNodetoBundle(server);
                         // ES.getApplications().get(i).ComputeNodeIndex.add(indexChassis);
                         // //need to think about that!
@@ -167,9 +204,7 @@ public abstract class ResourceAllocation {
                     // idle
                     {
                         int indexServer = enterpriseSystem.getComputeNodeList().get(j).getServerID();
-                        int indexChassis = enterpriseSystem.getComputeNodeList().get(j).getChassisID();
-                        BladeServer server = dataCenter.getServer(indexChassis,
-                                findServerInChasis(indexChassis, indexServer));
+                        BladeServer server = dataCenter.getServer(indexServer);
                         enterpriseSystem.getApplications().get(0).addCompNodetoBundle(server);
                         // ES.getApplications().get(0).ComputeNodeIndex.add(indexChassis);
                         // //need to think about that!
@@ -197,21 +232,8 @@ public abstract class ResourceAllocation {
     public void initialResourceAloc(ComputeSystem computeSystem) {
         // Best fit resource allocation
         int[] serverIndex = new int[2];
-        List<Integer> myChassisList = createChassisArray(computeSystem.getRackIDs());// creats
-        // a
-        // list
-        // of
-        // servers
-        // ID
-        // that
-        // will
-        // be
-        // used
-        // for
-        // resource
-        // allocation
         for (int i = 0; i < computeSystem.getNumberOfNode(); i++) {
-            serverIndex = nextServerSys(myChassisList);
+            serverIndex = nextServerInRacks(computeSystem.getRackIDs());
             if (serverIndex == null) {
                 LOGGER.info("-2 index in which server  initialResourceAloc(ComputeSystem CS)  iiiii" + i);
                 return;
@@ -256,21 +278,8 @@ public abstract class ResourceAllocation {
 
     public void initialResourceAlocator(EnterpriseSystem enterpriseSystem) {
         int[] serverIndex = new int[2];
-        List<Integer> myChassisList = createChassisArray(enterpriseSystem.getRackIDs());// creats
-        // a
-        // list
-        // of
-        // servers
-        // ID
-        // that
-        // will
-        // be
-        // used
-        // for
-        // resource
-        // allocation
         for (int i = 0; i < enterpriseSystem.getNumberOfNode(); i++) {
-            serverIndex = nextServerSys(myChassisList);
+            serverIndex = nextServerInRacks(enterpriseSystem.getRackIDs());
             if (serverIndex[0] == -2) {
                 LOGGER.info("-2 index in which server initialResourceAloc(EnterpriseSystem ES)");
                 return;
@@ -293,10 +302,8 @@ public abstract class ResourceAllocation {
         for (EnterpriseApp enterpriseApplication : enterpriseSystem.getApplications()) {
             neededProc = enterpriseApplication.getMinProc();
             for (int index = 0; index < neededProc; index++) {
-                int indexServer = enterpriseSystem.getComputeNodeList().get(indexInComputeList).getServerID();
-                int indexChassis = enterpriseSystem.getComputeNodeList().get(indexInComputeList++).getChassisID();
-                final BladeServer server = dataCenter.getServer(indexChassis,
-                        findServerInChasis(indexChassis, indexServer));
+                int indexServer = enterpriseSystem.getComputeNodeList().get(indexInComputeList++).getServerID();
+                final BladeServer server = dataCenter.getServer(indexServer);
                 enterpriseApplication.addCompNodetoBundle(server);
                 // ES.getApplications().get(i).ComputeNodeIndex.add(indexChassis);
                 // //need to think about that!
@@ -319,32 +326,18 @@ public abstract class ResourceAllocation {
     // searching from cool affect place for the number of requested srever
 
     int findServerInChasis(int chassis, int servID) {
-        for (int i = 0; i < dataCenter.getChassisSet().get(chassis).getServers().size(); i++) {
-            if (dataCenter.getChassisSet().get(chassis).getServers().get(i).getServerID() == servID) {
-                return i;
-            }
+        ServerRegistry serverRegistry = dataCenter.getServerRegistry();
+        if (!serverRegistry.contains(servID) || serverRegistry.getChassisIndex(servID) != chassis) {
+            return -2;
         }
-        return -2;
+        return serverRegistry.getSlot(servID);
     }
 
     public void initialResourceAlocator(InteractiveSystem interactiveSystem) {
         /// Initial alocation of compute node
         int[] serverIndex = new int[2];
-        List<Integer> myChassisList = createChassisArray(interactiveSystem.getRackIDs());// creats
-        // a
-        // list
-        // of
-        // servers
-        // ID
-        // that
-        // will
-        // be
-        // used
-        // for
-        // resource
-        // allocation
         for (int i = 0; i < interactiveSystem.getNumberOfNode(); i++) {
-            serverIndex = nextServerSys(myChassisList);
+            serverIndex = nextServerInRacks(interactiveSystem.getRackIDs());
             if (serverIndex[0] == -2) {
                 LOGGER.info("-2 index in which server in initialResourceAloc_sys(WebBasedSystem");
                 return;
@@ -413,27 +406,15 @@ public abstract class ResourceAllocation {
     List<Integer> createServerArray(int[] myRackID) {
         List<Integer> myServerId = new ArrayList<Integer>();
         for (int i = 0; i < myRackID.length; i++) {
-            for (Chassis chassis : dataCenter.getChassisSet()) {
-                if (chassis.getRackID() == myRackID[i]) {
-                    for (BladeServer bladeServer : chassis.getServers()) {
-                        myServerId.add(bladeServer.getServerID());
-                    }
-                }
-            }
+            myServerId.addAll(dataCenter.getRackIndex().getServers(myRackID[i]));
         }
-
         return myServerId;
     }
 
     List<Integer> createChassisArray(List<Integer> myRackID) {
         List<Integer> myChassisId = new ArrayList<Integer>();
         for (int i = 0; i < myRackID.size(); i++) {
-            int j = 0;
-            for (; j < dataCenter.getChassisSet().size(); j++) {
-                if (dataCenter.getChassisSet().get(j).getRackID() == myRackID.get(i)) {
-                    myChassisId.add(dataCenter.getChassisSet().get(j).getChassisID());
-                }
-            }
+            myChassisId.addAll(dataCenter.getRackIndex().getChassis(myRackID.get(i)));
         }
         return myChassisId;
     }
@@ -450,10 +431,8 @@ public abstract class ResourceAllocation {
                         return;
                     }
                     int indexServer = IS.getUserList().get(i).getComputeNodeList().get(indexi).getServerID();
-                    int indexChassis = IS.getUserList().get(i).getComputeNodeList().get(indexi).getChassisID();
                     IS.getUserList().get(i).getComputeNodeList().remove(indexi);
-                    final BladeServer server = dataCenter.getServer(indexChassis,
-                            findServerInChasis(indexChassis, indexServer));
+                    final BladeServer server = dataCenter.getServer(indexServer);
                     server.setReady(-2);
                     server.setSLAPercentage(0);
                     server.setTimeTreshold(0);
@@ -472,7 +451,7 @@ public abstract class ResourceAllocation {
         for (int i = 0; i < alocVectr.length; i++) {
             if (alocVectr[i] >= 1) {
                 for (int ii = 0; ii < alocVectr[i]; ii++) {
-                    int indexInComputeList = nextServerInSys(IS.getComputeNodeList());
+                    int indexInComputeList = nextServerInSys(IS);
                     if (indexInComputeList == -2) {
                         LOGGER.info("nashod alocate konim! for  this User ->" + i + "\tsize quueue 0->"
                                 + IS.getUserList().get(0).getQueueWL().size() + "\t1->"
@@ -481,9 +460,7 @@ public abstract class ResourceAllocation {
                         IS.getAM().getRecForCoop()[i] = 1;
                     } else {
                         int indexServer = IS.getComputeNodeList().get(indexInComputeList).getServerID();
-                        int indexChassis = IS.getComputeNodeList().get(indexInComputeList).getChassisID();
-                        final BladeServer server = dataCenter.getServer(indexChassis,
-                                findServerInChasis(indexChassis, indexServer));
+                        final BladeServer server = dataCenter.getServer(indexServer);
                         IS.getUserList().get(i).addCompNodetoBundle(server);
                         // ES.getApplications().get(i).ComputeNodeIndex.add(indexChassis);
                         // //need to think about that!
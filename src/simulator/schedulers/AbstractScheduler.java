@@ -0,0 +1,16 @@
+package simulator.schedulers;
+
+import simulator.jobs.Job;
+
+/**
+ * Base of the schedulers. By default the waiting jobs are kept in a
+ * ListJobQueue, which asks nextJob() for its head; schedulers that can keep
+ * their jobs in order as they come override newQueue().
+ */
+public abstract class AbstractScheduler implements Scheduler {
+
+    @Override
+    public <T extends Job> JobQueue<T> newQueue() {
+        return new ListJobQueue<T>(this);
+    }
+}
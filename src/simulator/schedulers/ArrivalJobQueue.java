@@ -0,0 +1,56 @@
+package simulator.schedulers;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import simulator.jobs.Job;
+
+/**
+ * Waiting jobs in arrival order with O(1) offer, poll and remove, for first
+ * come first served. The jobs can also be walked in that order, as
+ * backfilling needs.
+ */
+public class ArrivalJobQueue<T extends Job> implements JobQueue<T>, Iterable<T> {
+
+    private final Set<T> jobs = new LinkedHashSet<T>();
+
+    @Override
+    public void offer(T job) {
+        jobs.add(job);
+    }
+
+    @Override
+    public T peek() {
+        return jobs.isEmpty() ? null : jobs.iterator().next();
+    }
+
+    @Override
+    public T poll() {
+        T job = peek();
+        if (job != null) {
+            jobs.remove(job);
+        }
+        return job;
+    }
+
+    @Override
+    public boolean remove(T job) {
+        return jobs.remove(job);
+    }
+
+    @Override
+    public int size() {
+        return jobs.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return jobs.isEmpty();
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return jobs.iterator();
+    }
+}
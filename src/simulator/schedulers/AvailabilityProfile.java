@@ -0,0 +1,253 @@
+package simulator.schedulers;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import simulator.jobs.BatchJob;
+
+/**
+ * When the running batch jobs of a system are expected to give their nodes
+ * back, and which nodes the waiting jobs have reserved. A job is expected to
+ * hold its nodes for the work it has left, one unit a tick. Releases are kept
+ * sorted by time from one scheduling to the next: starting a job is
+ * O(log n), and finding when some number of nodes is free only walks the
+ * releases up to that time. A walk moves each release it reaches to when its
+ * job is expected to end by then, in O(log n), and drops the jobs that are
+ * done.
+ * 
+ * The reservations are kept in a plan: the nodes left free from each time on
+ * once the releases are in and the reserved nodes are out, sorted by time. It
+ * is made from the releases by plan(int, int) and kept from one scheduling to
+ * the next; reserving nodes and finding where they fit only look up the times
+ * of the plan they cover.
+ */
+public class AvailabilityProfile {
+
+    private static class Release implements Comparable<Release> {
+        private final int time;
+        private final long sequence;
+        private final BatchJob job;
+
+        Release(int time, long sequence, BatchJob job) {
+            this.time = time;
+            this.sequence = sequence;
+            this.job = job;
+        }
+
+        @Override
+        public int compareTo(Release other) {
+            if (time != other.time) {
+                return time < other.time ? -1 : 1;
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+
+    private final TreeSet<Release> releases = new TreeSet<Release>();
+    private final Map<BatchJob, Release> byJob = new IdentityHashMap<BatchJob, Release>();
+    private long started = 0;
+    // nodes free from each time on, with the releases and the reservations
+    private final TreeMap<Integer, Integer> plan = new TreeMap<Integer, Integer>();
+
+    /**
+     * Ticks job is expected to hold its nodes from now on, at least one: the
+     * most work any of its nodes has left.
+     */
+    public static int duration(BatchJob job) {
+        double remain = 0;
+        for (int i = 0; i < job.getNumOfNode(); i++) {
+            remain = Math.max(remain, job.getRemain()[i]);
+        }
+        return Math.max(1, (int) Math.ceil(remain));
+    }
+
+    public void start(BatchJob job, int now) {
+        release(job);
+        add(job, now + duration(job));
+    }
+
+    private void add(BatchJob job, int time) {
+        Release release = new Release(time, started++, job);
+        releases.add(release);
+        byJob.put(job, release);
+    }
+
+    public void release(BatchJob job) {
+        Release release = byJob.remove(job);
+        if (release != null) {
+            releases.remove(release);
+        }
+    }
+
+    public int size() {
+        return byJob.size();
+    }
+
+    /**
+     * Earliest time, from now on, at which free plus the nodes given back
+     * reach nodes; Integer.MAX_VALUE if the running jobs never give back
+     * enough.
+     */
+    public int shadowTime(int free, int nodes, int now) {
+        if (free >= nodes) {
+            return now;
+        }
+        int available = free;
+        Walk walk = new Walk(now);
+        while (available < nodes) {
+            Release release = walk.next();
+            if (release == null) {
+                return Integer.MAX_VALUE;
+            }
+            available += release.job.getNumOfNode();
+        }
+        return walk.time;
+    }
+
+    /**
+     * Nodes free at time, when free are free now.
+     */
+    public int freeAt(int time, int free, int now) {
+        int available = free;
+        Walk walk = new Walk(now);
+        for (Release release = walk.next(); release != null && walk.time <= time; release = walk.next()) {
+            available += release.job.getNumOfNode();
+        }
+        return available;
+    }
+
+    /**
+     * Whether a running job is done before the time it was expected to give
+     * its nodes back.
+     */
+    public boolean endedEarly(int now) {
+        for (Release release : releases.tailSet(new Release(now, Long.MAX_VALUE, null))) {
+            if (release.job.allDone()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Makes a plan without reservations: free nodes now, and the nodes of the
+     * running jobs once they are expected to end.
+     */
+    public void plan(int free, int now) {
+        plan.clear();
+        plan.put(now, free);
+        int available = free;
+        Walk walk = new Walk(now);
+        for (Release release = walk.next(); release != null; release = walk.next()) {
+            available += release.job.getNumOfNode();
+            plan.put(walk.time, available);
+        }
+    }
+
+    /**
+     * Drops what the plan held for the times before now.
+     */
+    public void forget(int now) {
+        Integer current = plan.floorKey(now);
+        if (current != null) {
+            plan.headMap(current, false).clear();
+        }
+    }
+
+    /**
+     * Holds nodes from start for duration ticks in the plan, for a job that
+     * starts then or is waiting to.
+     */
+    public void reserve(int start, int nodes, int duration) {
+        int end = start + duration;
+        plan.put(end, freeAt(end));
+        plan.put(start, freeAt(start));
+        for (Map.Entry<Integer, Integer> entry : plan.subMap(start, end).entrySet()) {
+            entry.setValue(entry.getValue() - nodes);
+        }
+    }
+
+    // nodes free at time in the plan
+    private int freeAt(int time) {
+        Map.Entry<Integer, Integer> entry = plan.floorEntry(time);
+        return entry == null ? 0 : entry.getValue();
+    }
+
+    /**
+     * Earliest time from now on at which nodes stay free for duration ticks
+     * in the plan; Integer.MAX_VALUE if there is none.
+     */
+    public int earliestFit(int nodes, int duration, int now) {
+        int start = now;
+        while (true) {
+            if (freeAt(start) < nodes) {
+                // the next time enough nodes are free
+                Integer next = plan.higherKey(start);
+                while (next != null && plan.get(next) < nodes) {
+                    next = plan.higherKey(next);
+                }
+                if (next == null) {
+                    return Integer.MAX_VALUE;
+                }
+                start = next;
+            }
+            // the first time in the window with too few nodes, if any
+            Integer blocked = null;
+            for (Map.Entry<Integer, Integer> entry : plan.subMap(start, false, start + duration, false).entrySet()) {
+                if (entry.getValue() < nodes) {
+                    blocked = entry.getKey();
+                    break;
+                }
+            }
+            if (blocked == null) {
+                return start;
+            }
+            start = blocked;
+        }
+    }
+
+    // the releases of the running jobs in time order; time never goes back,
+    // so a job found to end before the walk's time is given at that time
+    private final class Walk {
+        private final int now;
+        private Release cursor = null;
+        private int time;
+
+        Walk(int now) {
+            this.now = now;
+            this.time = now + 1;
+        }
+
+        Release next() {
+            Release release = cursor == null ? first() : releases.higher(cursor);
+            while (release != null) {
+                cursor = release;
+                if (release.job.allDone()) {
+                    releases.remove(release);
+                    byJob.remove(release.job);
+                } else {
+                    int expected = now + duration(release.job);
+                    if (expected == release.time) {
+                        time = Math.max(time, expected);
+                        return release;
+                    }
+                    releases.remove(release);
+                    add(release.job, expected);
+                    if (expected < release.time) {
+                        // moved back over releases the walk has been through
+                        time = Math.max(time, expected);
+                        return byJob.get(release.job);
+                    }
+                }
+                release = releases.higher(cursor);
+            }
+            return null;
+        }
+
+        private Release first() {
+            return releases.isEmpty() ? null : releases.first();
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package simulator.schedulers;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import simulator.jobs.BatchJob;
+import simulator.jobs.Job;
+
+/**
+ * First come first served with backfilling. Jobs that arrived later may start
+ * ahead of a job that does not get its nodes, as long as they do not delay it:
+ * in EASY mode only the first waiting job has a reservation, in conservative
+ * mode every waiting job has one. Reservations come from the availability
+ * profile of the jobs this scheduler started.
+ * 
+ * In conservative mode a job gets its reservation when it arrives, behind the
+ * ones already made, and starts at its reserved time. The reservations are
+ * only made again, in queue order, when a running job ends before it was
+ * expected to or a job could not start at its reserved time.
+ */
+public class BackfillingScheduler extends AbstractScheduler {
+
+    public enum Mode {
+        EASY, CONSERVATIVE
+    }
+
+    /**
+     * The system the jobs run on.
+     */
+    public interface JobStarter {
+
+        /**
+         * Nodes that run no job, so a job started now gets them for itself.
+         * Called for every waiting job, so it should not scan the nodes.
+         */
+        public int freeNodes();
+
+        /**
+         * Gives job its nodes out of the freeNodes() ones; false if they could
+         * not be found.
+         */
+        public boolean start(BatchJob job);
+    }
+
+    private static class Reservation implements Comparable<Reservation> {
+        private final int start;
+        private final long sequence;
+        private final BatchJob job;
+
+        Reservation(int start, long sequence, BatchJob job) {
+            this.start = start;
+            this.sequence = sequence;
+            this.job = job;
+        }
+
+        @Override
+        public int compareTo(Reservation other) {
+            if (start != other.start) {
+                return start < other.start ? -1 : 1;
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+
+    private final Mode mode;
+    private final AvailabilityProfile profile = new AvailabilityProfile();
+    // the reservations of the waiting jobs by start, then in queue order; a
+    // job that never gets its nodes is reserved at Integer.MAX_VALUE
+    private final TreeSet<Reservation> reservations = new TreeSet<Reservation>();
+    private final Map<BatchJob, Reservation> reservationOf = new IdentityHashMap<BatchJob, Reservation>();
+    private long reserved = 0;
+    private boolean replan = true;
+    // free nodes when the last scheduling was done
+    private int freeAfter = 0;
+    // jobs in the queue that had not arrived at the last look, and when the
+    // first of them arrives
+    private int notArrived = 0;
+    private int nextArrival = Integer.MAX_VALUE;
+    // an arrived job was left waiting by the last scheduling
+    private boolean leftWaiting = false;
+
+    public BackfillingScheduler(Mode mode) {
+        this.mode = mode;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public AvailabilityProfile getProfile() {
+        return profile;
+    }
+
+    @Override
+    public Job nextJob(List<? extends Job> queue) {
+        return queue.get(0);
+    }
+
+    @Override
+    public <T extends Job> JobQueue<T> newQueue() {
+        return new ArrivalJobQueue<T>();
+    }
+
+    /**
+     * Starts the jobs of queue that arrived by now and may start now. Returns
+     * true if an arrived job is left waiting for nodes.
+     */
+    public boolean schedule(ArrivalJobQueue<BatchJob> queue, int now, JobStarter starter) {
+        if (mode == Mode.EASY) {
+            leftWaiting = scheduleEasy(queue, now, starter);
+        } else {
+            leftWaiting = scheduleConservative(queue, now, starter);
+        }
+        return leftWaiting;
+    }
+
+    /**
+     * Next tick after the last scheduling at now at which a job of the queue
+     * may start with no job ending before: a job arrives or, in conservative
+     * mode, a reservation starts. In EASY mode the reservation follows the
+     * work left every tick, so a waiting job makes it the next tick.
+     */
+    public int nextEventTime(int now) {
+        if (mode == Mode.EASY ? leftWaiting : replan) {
+            return now + 1;
+        }
+        int next = nextArrival;
+        if (!reservations.isEmpty()) {
+            next = Math.min(next, reservations.first().start);
+        }
+        return Math.max(next, now + 1);
+    }
+
+    private boolean scheduleEasy(ArrivalJobQueue<BatchJob> queue, int now, JobStarter starter) {
+        List<BatchJob> started = new ArrayList<BatchJob>();
+        boolean waiting = false;
+        int shadow = 0;
+        int extra = 0;
+        nextArrival = Integer.MAX_VALUE;
+        for (BatchJob job : queue) {
+            if (job.getStartTime() > now) {
+                nextArrival = (int) Math.ceil(job.getStartTime());
+                break;
+            }
+            int nodes = job.getNumOfNode();
+            int free = starter.freeNodes();
+            if (!waiting) {
+                if (nodes <= free && start(job, now, starter)) {
+                    started.add(job);
+                    continue;
+                }
+                // the first job that has to wait gets the reservation
+                waiting = true;
+                shadow = profile.shadowTime(free, nodes, now);
+                extra = shadow == Integer.MAX_VALUE ? 0 : profile.freeAt(shadow, free, now) - nodes;
+                continue;
+            }
+            boolean endsInTime = now + AvailabilityProfile.duration(job) <= shadow;
+            if (nodes <= free && (endsInTime || nodes <= extra) && start(job, now, starter)) {
+                started.add(job);
+                if (!endsInTime) {
+                    extra -= nodes;
+                }
+            }
+        }
+        for (BatchJob job : started) {
+            queue.remove(job);
+        }
+        return waiting;
+    }
+
+    private boolean scheduleConservative(ArrivalJobQueue<BatchJob> queue, int now, JobStarter starter) {
+        // only a job that ended gives nodes back
+        if (starter.freeNodes() > freeAfter && profile.endedEarly(now)) {
+            replan = true;
+        }
+        profile.forget(now);
+        if (!replan && !startReserved(queue, now, starter)) {
+            replan = true;
+        }
+        // jobs were offered since the last look, or one of them arrived
+        boolean arrived = queue.size() - reservationOf.size() > notArrived || now >= nextArrival;
+        if (!replan && arrived && !reserveArrived(queue, now, starter)) {
+            replan = true;
+        }
+        if (replan) {
+            plan(queue, now, starter);
+        }
+        notArrived = queue.size() - reservationOf.size();
+        freeAfter = starter.freeNodes();
+        return !reservationOf.isEmpty();
+    }
+
+    // starts the jobs reserved by now; false if one of them could not start
+    private boolean startReserved(ArrivalJobQueue<BatchJob> queue, int now, JobStarter starter) {
+        while (!reservations.isEmpty() && reservations.first().start <= now) {
+            BatchJob job = reservations.first().job;
+            if (!start(job, now, starter)) {
+                return false;
+            }
+            unreserve(job);
+            queue.remove(job);
+        }
+        return true;
+    }
+
+    // reserves for the jobs that arrived since the last look, behind the
+    // others; false if one of them fits now but could not start
+    private boolean reserveArrived(ArrivalJobQueue<BatchJob> queue, int now, JobStarter starter) {
+        List<BatchJob> started = new ArrayList<BatchJob>();
+        boolean startedAll = true;
+        nextArrival = Integer.MAX_VALUE;
+        for (BatchJob job : queue) {
+            if (job.getStartTime() > now) {
+                nextArrival = (int) Math.ceil(job.getStartTime());
+                break;
+            }
+            if (reservationOf.containsKey(job)) {
+                continue;
+            }
+            int nodes = job.getNumOfNode();
+            int duration = AvailabilityProfile.duration(job);
+            int start = profile.earliestFit(nodes, duration, now);
+            if (start == now) {
+                if (!start(job, now, starter)) {
+                    startedAll = false;
+                    break;
+                }
+                profile.reserve(now, nodes, duration);
+                started.add(job);
+                continue;
+            }
+            reserve(job, start, nodes, duration);
+        }
+        for (BatchJob job : started) {
+            queue.remove(job);
+        }
+        return startedAll;
+    }
+
+    // makes every reservation again, in queue order, and starts the jobs
+    // that fit now
+    private void plan(ArrivalJobQueue<BatchJob> queue, int now, JobStarter starter) {
+        replan = false;
+        reservations.clear();
+        reservationOf.clear();
+        profile.plan(starter.freeNodes(), now);
+        List<BatchJob> started = new ArrayList<BatchJob>();
+        nextArrival = Integer.MAX_VALUE;
+        for (BatchJob job : queue) {
+            if (job.getStartTime() > now) {
+                nextArrival = (int) Math.ceil(job.getStartTime());
+                break;
+            }
+            int nodes = job.getNumOfNode();
+            int duration = AvailabilityProfile.duration(job);
+            int start = profile.earliestFit(nodes, duration, now);
+            if (start == now) {
+                if (start(job, now, starter)) {
+                    profile.reserve(now, nodes, duration);
+                    started.add(job);
+                    continue;
+                }
+                // the nodes were there but could not be given: wait a tick
+                // and plan again
+                start = now + 1;
+                replan = true;
+            }
+            reserve(job, start, nodes, duration);
+        }
+        for (BatchJob job : started) {
+            queue.remove(job);
+        }
+    }
+
+    private void reserve(BatchJob job, int start, int nodes, int duration) {
+        if (start != Integer.MAX_VALUE) {
+            profile.reserve(start, nodes, duration);
+        }
+        Reservation reservation = new Reservation(start, reserved++, job);
+        reservations.add(reservation);
+        reservationOf.put(job, reservation);
+    }
+
+    private void unreserve(BatchJob job) {
+        reservations.remove(reservationOf.remove(job));
+    }
+
+    private boolean start(BatchJob job, int now, JobStarter starter) {
+        if (!starter.start(job)) {
+            return false;
+        }
+        profile.start(job, now);
+        return true;
+    }
+}
@@ -0,0 +1,28 @@
+package simulator.schedulers;
+
+import java.util.Comparator;
+
+import simulator.jobs.BatchJob;
+import simulator.jobs.Job;
+
+/**
+ * Picks the batch job that has to reach a server first: the one with the
+ * earliest start time plus deadline.
+ */
+public class EarliestDeadlineFirstScheduler extends PriorityScheduler {
+
+    private static final Comparator<Job> DEADLINE = new Comparator<Job>() {
+        @Override
+        public int compare(Job a, Job b) {
+            return Double.compare(absoluteDeadline((BatchJob) a), absoluteDeadline((BatchJob) b));
+        }
+    };
+
+    public EarliestDeadlineFirstScheduler() {
+        super(DEADLINE);
+    }
+
+    static double absoluteDeadline(BatchJob job) {
+        return job.getStartTime() + job.getDeadline();
+    }
+}
@@ -12,10 +12,15 @@ import simulator.jobs.Job;
  *
  * @author fnorouz
  */
-public class FIFOScheduler implements Scheduler {
+public class FIFOScheduler extends AbstractScheduler {
 
     @Override
     public Job nextJob(List<? extends Job> queue) {
         return queue.get(0);
     }
+
+    @Override
+    public <T extends Job> JobQueue<T> newQueue() {
+        return new ArrivalJobQueue<T>();
+    }
 }
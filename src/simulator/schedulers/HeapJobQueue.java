@@ -0,0 +1,154 @@
+package simulator.schedulers;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import simulator.jobs.Job;
+
+/**
+ * Binary heap of waiting jobs. Each job holds its place in the heap, so offer,
+ * poll and removing any job are O(log n) and peek is O(1). Jobs the ordering
+ * considers equal come out in the order they were offered. The ordering of a
+ * job must not change while it is queued, and a job can be in one
+ * HeapJobQueue at a time.
+ */
+public class HeapJobQueue<T extends Job> implements JobQueue<T> {
+
+    private final Comparator<? super T> order;
+    private Job[] heap = new Job[16];
+    // offer sequence of the job at the same place in heap
+    private long[] sequences = new long[16];
+    private int size = 0;
+    private long offered = 0;
+
+    public HeapJobQueue(Comparator<? super T> order) {
+        this.order = order;
+    }
+
+    @Override
+    public void offer(T job) {
+        if (contains(job)) {
+            return;
+        }
+        if (job.getQueuePosition() >= 0) {
+            throw new IllegalArgumentException("Job is waiting in another queue");
+        }
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, 2 * size);
+            sequences = Arrays.copyOf(sequences, 2 * size);
+        }
+        heap[size] = job;
+        sequences[size] = offered++;
+        job.setQueuePosition(size);
+        size++;
+        siftUp(size - 1);
+    }
+
+    @Override
+    public T peek() {
+        return size == 0 ? null : jobAt(0);
+    }
+
+    @Override
+    public T poll() {
+        if (size == 0) {
+            return null;
+        }
+        T job = jobAt(0);
+        removeAt(0);
+        return job;
+    }
+
+    @Override
+    public boolean remove(T job) {
+        if (!contains(job)) {
+            return false;
+        }
+        removeAt(job.getQueuePosition());
+        return true;
+    }
+
+    private boolean contains(Job job) {
+        int position = job.getQueuePosition();
+        return position >= 0 && position < size && heap[position] == job;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private void removeAt(int position) {
+        heap[position].setQueuePosition(-1);
+        size--;
+        if (position != size) {
+            move(size, position);
+            heap[size] = null;
+            siftDown(position);
+            siftUp(position);
+        } else {
+            heap[size] = null;
+        }
+    }
+
+    private void siftUp(int position) {
+        while (position > 0) {
+            int parent = (position - 1) / 2;
+            if (!before(position, parent)) {
+                break;
+            }
+            swap(position, parent);
+            position = parent;
+        }
+    }
+
+    private void siftDown(int position) {
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && before(child + 1, child)) {
+                child++;
+            }
+            if (!before(child, position)) {
+                break;
+            }
+            swap(position, child);
+            position = child;
+        }
+    }
+
+    private boolean before(int i, int j) {
+        int compared = order.compare(jobAt(i), jobAt(j));
+        if (compared != 0) {
+            return compared < 0;
+        }
+        return sequences[i] < sequences[j];
+    }
+
+    private void swap(int i, int j) {
+        Job job = heap[i];
+        long sequence = sequences[i];
+        move(j, i);
+        heap[j] = job;
+        sequences[j] = sequence;
+        job.setQueuePosition(j);
+    }
+
+    private void move(int from, int to) {
+        heap[to] = heap[from];
+        sequences[to] = sequences[from];
+        heap[to].setQueuePosition(to);
+    }
+
+    @SuppressWarnings("unchecked")
+    private T jobAt(int position) {
+        return (T) heap[position];
+    }
+}
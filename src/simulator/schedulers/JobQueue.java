@@ -0,0 +1,24 @@
+package simulator.schedulers;
+
+import simulator.jobs.Job;
+
+/**
+ * Jobs waiting for a scheduler, kept in the order the scheduler picks them.
+ */
+public interface JobQueue<T extends Job> {
+
+    public void offer(T job);
+
+    /**
+     * Job the scheduler would pick next, null if the queue is empty.
+     */
+    public T peek();
+
+    public T poll();
+
+    public boolean remove(T job);
+
+    public int size();
+
+    public boolean isEmpty();
+}
@@ -4,6 +4,7 @@
  */
 package simulator.schedulers;
 
+import java.util.Comparator;
 import java.util.List;
 
 import simulator.jobs.BatchJob;
@@ -13,7 +14,14 @@ import simulator.jobs.Job;
  *
  * @author fnorouz
  */
-public class LeastRemainFirstScheduler implements Scheduler {
+public class LeastRemainFirstScheduler extends AbstractScheduler {
+
+    private static final Comparator<Job> REQUIRED_TIME = new Comparator<Job>() {
+        @Override
+        public int compare(Job a, Job b) {
+            return Double.compare(((BatchJob) a).getReqTime(), ((BatchJob) b).getReqTime());
+        }
+    };
 
     // FIXME: this was clearly done to work only with BatchJob
     @Override
@@ -30,4 +38,9 @@ public class LeastRemainFirstScheduler implements Scheduler {
 
         return queue.get(minIndex);
     }
+
+    @Override
+    public <T extends Job> JobQueue<T> newQueue() {
+        return new HeapJobQueue<T>(REQUIRED_TIME);
+    }
 }
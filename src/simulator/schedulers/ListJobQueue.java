@@ -0,0 +1,58 @@
+package simulator.schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import simulator.jobs.Job;
+
+/**
+ * Waiting jobs in a plain list, in the order they were offered, for schedulers
+ * that pick a job by looking at the whole list with nextJob().
+ */
+public class ListJobQueue<T extends Job> implements JobQueue<T> {
+
+    private final Scheduler scheduler;
+    private final List<T> jobs = new ArrayList<T>();
+
+    public ListJobQueue(Scheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public void offer(T job) {
+        jobs.add(job);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public T peek() {
+        if (jobs.isEmpty()) {
+            return null;
+        }
+        return (T) scheduler.nextJob(jobs);
+    }
+
+    @Override
+    public T poll() {
+        T job = peek();
+        if (job != null) {
+            jobs.remove(job);
+        }
+        return job;
+    }
+
+    @Override
+    public boolean remove(T job) {
+        return jobs.remove(job);
+    }
+
+    @Override
+    public int size() {
+        return jobs.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return jobs.isEmpty();
+    }
+}
@@ -0,0 +1,35 @@
+package simulator.schedulers;
+
+import java.util.Comparator;
+import java.util.List;
+
+import simulator.jobs.Job;
+
+/**
+ * Picks the job that comes first in a given order; jobs that tie are picked in
+ * the order they arrived.
+ */
+public class PriorityScheduler extends AbstractScheduler {
+
+    private final Comparator<Job> priority;
+
+    public PriorityScheduler(Comparator<Job> priority) {
+        this.priority = priority;
+    }
+
+    @Override
+    public Job nextJob(List<? extends Job> queue) {
+        Job next = queue.get(0);
+        for (Job job : queue) {
+            if (priority.compare(job, next) < 0) {
+                next = job;
+            }
+        }
+        return next;
+    }
+
+    @Override
+    public <T extends Job> JobQueue<T> newQueue() {
+        return new HeapJobQueue<T>(priority);
+    }
+}
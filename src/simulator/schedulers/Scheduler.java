@@ -7,4 +7,10 @@ import simulator.jobs.Job;
 public interface Scheduler {
 
     public Job nextJob(List<? extends Job> s);
+
+    /**
+     * An empty queue whose head is always the job nextJob() would pick from
+     * the same jobs.
+     */
+    public <T extends Job> JobQueue<T> newQueue();
 }
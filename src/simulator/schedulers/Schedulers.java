@@ -0,0 +1,45 @@
+package simulator.schedulers;
+
+import java.util.logging.Logger;
+
+/**
+ * Schedulers by the names used in the <Scheduler> element of the system
+ * configuration files.
+ */
+public final class Schedulers {
+
+    private static final Logger LOGGER = Logger.getLogger(Schedulers.class.getName());
+
+    private Schedulers() {
+    }
+
+    /**
+     * FCFS (or FIFO), LRF (Least-Remain-First), EDF
+     * (Earliest-Deadline-First), EASY (EASY-Backfilling) or Conservative
+     * (Conservative-Backfilling); defaultScheduler when name is empty or
+     * unknown.
+     */
+    public static Scheduler forName(String name, Scheduler defaultScheduler) {
+        if (name == null || name.trim().isEmpty()) {
+            return defaultScheduler;
+        }
+        String trimmed = name.trim();
+        if (trimmed.equalsIgnoreCase("FCFS") || trimmed.equalsIgnoreCase("FIFO")) {
+            return new FIFOScheduler();
+        }
+        if (trimmed.equalsIgnoreCase("LRF") || trimmed.equalsIgnoreCase("Least-Remain-First")) {
+            return new LeastRemainFirstScheduler();
+        }
+        if (trimmed.equalsIgnoreCase("EDF") || trimmed.equalsIgnoreCase("Earliest-Deadline-First")) {
+            return new EarliestDeadlineFirstScheduler();
+        }
+        if (trimmed.equalsIgnoreCase("EASY") || trimmed.equalsIgnoreCase("EASY-Backfilling")) {
+            return new BackfillingScheduler(BackfillingScheduler.Mode.EASY);
+        }
+        if (trimmed.equalsIgnoreCase("Conservative") || trimmed.equalsIgnoreCase("Conservative-Backfilling")) {
+            return new BackfillingScheduler(BackfillingScheduler.Mode.CONSERVATIVE);
+        }
+        LOGGER.info("Unknown scheduler " + trimmed + ", using " + defaultScheduler.getClass().getSimpleName());
+        return defaultScheduler;
+    }
+}
@@ -1,6 +1,7 @@
 package simulator.system;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Level;
@@ -8,29 +9,57 @@ import java.util.logging.Logger;
 
 import simulator.Environment;
 import simulator.SLAViolationLogger;
+import simulator.TraceSource;
 import simulator.Violation;
 import simulator.am.ComputeSystemAM;
 import simulator.jobs.BatchJob;
 import simulator.physical.BladeServer;
 import simulator.physical.DataCenter;
 import simulator.ra.MHR;
+import simulator.schedulers.ArrivalJobQueue;
+import simulator.schedulers.BackfillingScheduler;
+import simulator.schedulers.JobQueue;
 import simulator.schedulers.LeastRemainFirstScheduler;
 import simulator.schedulers.Scheduler;
+import simulator.schedulers.Schedulers;
 
 public class ComputeSystem extends GeneralSystem {
 
     private static final Logger LOGGER = Logger.getLogger(ComputeSystem.class.getName());
+    // stands for a record that is not a job, which ends the reading of a tick
+    private static final BatchJob MALFORMED_RECORD = new BatchJob(null, null);
     
     private Violation SLAViolationType; // different type of violation:
     // ComputeNodeShortage, DEADLINEPASSED
-    private List<BatchJob> waitingList;
+    private JobQueue<BatchJob> waitingList;
     private int totalJob = 0;
-    private double inputTime;
     private boolean blocked = false;
     private int priority;
     private Environment environment;
     private SLAViolationLogger slaViolationLogger;
     private DataCenter dataCenter;
+    // set once the trace has no more records, so nextEventTime() stops
+    // reading ahead
+    private boolean traceExhausted = false;
+    // records nextEventTime() read for the coming ticks, in trace order
+    private final ArrayDeque<BatchJob> readAhead = new ArrayDeque<BatchJob>();
+    private boolean nodesChangedThisTime = false;
+    private boolean shortageThisTime = false;
+    // set when the jobs are scheduled with backfilling
+    private BackfillingScheduler backfilling;
+    private final BackfillingScheduler.JobStarter starter = new BackfillingScheduler.JobStarter() {
+        // ready nodes may already share their MIPS with some jobs, so only
+        // the ones that run none are counted and given
+        @Override
+        public int freeNodes() {
+            return getReadyIndex().countFree();
+        }
+
+        @Override
+        public boolean start(BatchJob job) {
+            return startJob(job, true);
+        }
+    };
 
     private ComputeSystem(SystemPOD systemPOD, Environment environment, DataCenter dataCenter, SLAViolationLogger slaViolationLogger) {
         super(systemPOD);
@@ -38,9 +67,12 @@ public class ComputeSystem extends GeneralSystem {
         this.dataCenter = dataCenter;
         this.slaViolationLogger = slaViolationLogger;
         setComputeNodeList(new ArrayList<BladeServer>());
-        waitingList = new ArrayList<BatchJob>();
         setComputeNodeIndex(new ArrayList<Integer>());
-        setScheduler(new LeastRemainFirstScheduler());
+        setScheduler(Schedulers.forName(((ComputeSystemPOD) systemPOD).getScheduler(), new LeastRemainFirstScheduler()));
+        waitingList = getScheduler().newQueue();
+        if (getScheduler() instanceof BackfillingScheduler) {
+            backfilling = (BackfillingScheduler) getScheduler();
+        }
         setBis(systemPOD.getBis());
         setNumberOfNode(systemPOD.getNumberOfNode());
         priority = ((ComputeSystemPOD) systemPOD).getPriority();
@@ -55,20 +87,42 @@ public class ComputeSystem extends GeneralSystem {
         int numberOfFinishedJob = 0;
         // if(Main.localTime%1200==0 |Main.localTime%1200==2 )
         // ASP();
-        BatchJob j = new BatchJob(environment, dataCenter);
         // reads all jobs with arrival time less than Localtime
-        while (readJob(j)) {
-            if (inputTime > environment.getCurrentLocalTime()) {
+        BatchJob j = nextJob();
+        while (j != null) {
+            waitingList.offer(j);
+            // number of jobs which are copied on # of requested nodes
+            totalJob = totalJob + 1 /* +Integer.parseInt(numbers[3]) */;
+            if (j.getStartTime() > environment.getCurrentLocalTime()) {
                 break;
             }
-            j = new BatchJob(environment, dataCenter);
+            j = nextJob();
         }
+        shortageThisTime = false;
+        nodesChangedThisTime = true;
         if (!isBlocked()) {
             // feeds jobs from waiting list to servers as much as possible
             getFromWaitinglist();
+            int[] readyBeforeRun = new int[getComputeNodeList().size()];
+            int activeBeforeRun = 0;
+            for (int temp = 0; temp < getComputeNodeList().size(); temp++) {
+                readyBeforeRun[temp] = getComputeNodeList().get(temp).getReady();
+                activeBeforeRun += getComputeNodeList().get(temp).getActiveBatchList().size();
+            }
             for (int temp = 0; temp < getComputeNodeList().size(); temp++) {
                 getComputeNodeList().get(temp).run(new BatchJob(environment, dataCenter));
             }
+            nodesChangedThisTime = false;
+            for (int temp = 0; temp < getComputeNodeList().size(); temp++) {
+                readyBeforeRun[temp] -= getComputeNodeList().get(temp).getReady();
+                activeBeforeRun -= getComputeNodeList().get(temp).getActiveBatchList().size();
+                if (readyBeforeRun[temp] != 0) {
+                    nodesChangedThisTime = true;
+                }
+            }
+            if (activeBeforeRun != 0) {
+                nodesChangedThisTime = true;
+            }
             for (int temp = 0; temp < getComputeNodeList().size(); temp++) {
                 numberOfFinishedJob = getComputeNodeList().get(temp).getTotalFinishedJob() + numberOfFinishedJob;
             }
@@ -92,15 +146,105 @@ public class ComputeSystem extends GeneralSystem {
             return false;
         }
     }
-    /// returns true if all nodes are blocked
 
-    boolean allNodesAreBlocked() {
+    /**
+     * Next tick at which this system does more than let its running jobs
+     * progress: a job finishes, the head of the waiting list may start, the AM
+     * epoch comes or a job read from the trace has arrived. With backfilling,
+     * a waiting job may also start when the scheduler says so. The ticks
+     * before it can be skipped with skipQuietTicksUntil(int).
+     */
+    int nextEventTime() {
+        int now = environment.getCurrentLocalTime();
+        if (isDone() || isBlocked() || nodesChangedThisTime || !environment.localTimeByEpoch()) {
+            return now + 1;
+        }
+        int quiet = environment.nextEpochTime() - now - 1;
+        if (backfilling != null) {
+            if (!waitingList.isEmpty()) {
+                quiet = Math.min(quiet, backfilling.nextEventTime(now) - now - 1);
+            }
+        } else if (!shortageThisTime && !waitingList.isEmpty()) {
+            BatchJob job = waitingList.peek();
+            quiet = Math.min(quiet, (int) Math.ceil(job.getStartTime()) - now - 1);
+        }
         for (BladeServer bladeServer : getComputeNodeList()) {
-            if (bladeServer.getReady() != -1) {
-                return false;
+            if (quiet <= 0) {
+                break;
             }
+            quiet = bladeServer.quietTicks(quiet);
         }
-        return true;
+        return now + 1 + Math.max(quietReads(quiet), 0);
+    }
+
+    /**
+     * Every tick reads at least one record, and stops reading at the first job
+     * that has not arrived yet. Returns how many of the coming ticks, at most
+     * limit, each read just one job that arrives after the tick that reads it,
+     * and no sooner than limit. The records needed to tell are read ahead and
+     * kept for those ticks.
+     */
+    private int quietReads(int limit) {
+        int now = environment.getCurrentLocalTime();
+        int tick = now + 1;
+        for (BatchJob job : readAhead) {
+            if (tick > now + limit) {
+                return limit;
+            }
+            limit = quietRead(job, tick++, limit);
+        }
+        // the ticks after the end of the trace read nothing
+        while (tick <= now + limit && !traceExhausted) {
+            BatchJob job = readJob();
+            if (job == null) {
+                return limit;
+            }
+            readAhead.add(job);
+            limit = quietRead(job, tick++, limit);
+        }
+        return limit;
+    }
+
+    // limit lowered to what job, the one record read at tick, leaves quiet
+    private int quietRead(BatchJob job, int tick, int limit) {
+        int now = environment.getCurrentLocalTime();
+        // with a node shortage a new job could take the head of the waiting
+        // list from the job that is short of nodes; backfilling only looks
+        // at the jobs that arrived
+        if (job == MALFORMED_RECORD || job.getStartTime() <= tick || (shortageThisTime && backfilling == null)) {
+            return tick - now - 1;
+        }
+        return Math.min(limit, (int) Math.ceil(job.getStartTime()) - now - 1);
+    }
+
+    /**
+     * Applies ticks now+1 .. time-1, which must not be past nextEventTime():
+     * jobs progress and a compute node shortage is reported again every tick.
+     */
+    void skipQuietTicksUntil(int time) {
+        int now = environment.getCurrentLocalTime();
+        if (time <= now + 1) {
+            return;
+        }
+        for (BladeServer bladeServer : getComputeNodeList()) {
+            bladeServer.skipQuietTicks(time - now - 1);
+        }
+        for (int t = now + 1; t < time && !readAhead.isEmpty(); t++) {
+            waitingList.offer(readAhead.poll());
+            totalJob = totalJob + 1;
+        }
+        if (shortageThisTime) {
+            for (int t = now + 1; t < time; t++) {
+                slaViolationLogger.logHPCViolation(getName(), Violation.COMPUTE_NODE_SHORTAGE, t);
+                setAccumolatedViolation(getAccumolatedViolation() + 1);
+            }
+        }
+    }
+
+    /// returns true if all nodes are blocked
+
+    boolean allNodesAreBlocked() {
+        return getReadyIndex().count(-1) == getReadyIndex().size();
     }
 
     void makeSystemaBlocked() {
@@ -121,57 +265,81 @@ public class ComputeSystem extends GeneralSystem {
         if (waitingList.isEmpty()) {
             return 0;
         }
-        BatchJob job = (BatchJob) (getScheduler().nextJob(waitingList));
+        if (backfilling != null) {
+            if (backfilling.schedule((ArrivalJobQueue<BatchJob>) waitingList, environment.getCurrentLocalTime(),
+                    starter)) {
+                setSLAviolation(Violation.COMPUTE_NODE_SHORTAGE);
+                shortageThisTime = true;
+            }
+            return 0;
+        }
+        BatchJob job = waitingList.peek();
         while (job.getStartTime() <= environment.getCurrentLocalTime()) {
-            int[] indexes = new int[job.getNumOfNode()]; // number of node the
-            // last job wants
-            int[] listServer = new int[job.getNumOfNode()];
-            if (getResourceAllocation().allocateSystemLevelServer(getComputeNodeList(), indexes)[0] == -2) {
+            if (!startJob(job, false)) {
                 setSLAviolation(Violation.COMPUTE_NODE_SHORTAGE);
+                shortageThisTime = true;
                 // LOGGER.info("COMPUTE NODE SHORTAGE in
                 // getFromWaitingList");
                 return 0; // can not find the bunch of requested node for the
                 // job
             }
-            listServer = makeListofServer(indexes);
-            for (int i = 0; i < indexes.length; i++) {
-
-                job.setListOfServer(listServer);
-                getComputeNodeList().get(indexes[i]).feedWork(job);// feed also
-                // takes care
-                // of setting
-                // ready :)
-                if (indexes.length > 1) {
-                    getComputeNodeList().get(indexes[i]).setDependency(1); // means:
-                    // this
-                    // server
-                    // has
-                    // a
-                    // process
-                    // which
-                    // is
-                    // dependent
-                    // on
-                    // others
-                } else {
-                    getComputeNodeList().get(indexes[i]).setDependency(0);
-                }
-            }
-            // Check if dealine is missed
-            if (environment.getCurrentLocalTime() - job.getStartTime() > job.getDeadline()) {
-                setSLAviolation(Violation.DEADLINEPASSED);
-                // LOGGER.info("DEADLINE PASSED in getFromWaitingList");
-            }
-            ////////////////////////////
-            waitingList.remove(job);
+            waitingList.poll();
             if (waitingList.isEmpty()) {
                 return 0;
             }
-            job = (BatchJob) (getScheduler().nextJob(waitingList));
+            job = waitingList.peek();
         }
         return 0; // it is not important
     }
 
+    /**
+     * Feeds job to as many ready nodes as it asks for, only nodes that run no
+     * batch job if onFreeNodes; false if there are not enough of them.
+     */
+    boolean startJob(BatchJob job, boolean onFreeNodes) {
+        int[] indexes = new int[job.getNumOfNode()]; // number of node the
+        // last job wants
+        int[] listServer = new int[job.getNumOfNode()];
+        if (onFreeNodes) {
+            getResourceAllocation().allocateFreeServer(this, indexes);
+        } else {
+            getResourceAllocation().allocateSystemLevelServer(this, indexes);
+        }
+        if (indexes[0] == -2) {
+            return false;
+        }
+        listServer = makeListofServer(indexes);
+        for (int i = 0; i < indexes.length; i++) {
+
+            job.setListOfServer(listServer);
+            getComputeNodeList().get(indexes[i]).feedWork(job, i);// feed also
+            // takes care
+            // of setting
+            // ready :)
+            if (indexes.length > 1) {
+                getComputeNodeList().get(indexes[i]).setDependency(1); // means:
+                // this
+                // server
+                // has
+                // a
+                // process
+                // which
+                // is
+                // dependent
+                // on
+                // others
+            } else {
+                getComputeNodeList().get(indexes[i]).setDependency(0);
+            }
+        }
+        // Check if dealine is missed
+        if (environment.getCurrentLocalTime() - job.getStartTime() > job.getDeadline()) {
+            setSLAviolation(Violation.DEADLINEPASSED);
+            // LOGGER.info("DEADLINE PASSED in getFromWaitingList");
+        }
+        return true;
+    }
+
     int[] makeListofServer(int[] list) {
         int[] retList = new int[list.length];
         // int
@@ -205,33 +373,37 @@ public class ComputeSystem extends GeneralSystem {
         }
     }
 
-    boolean readJob(BatchJob j) {
+    // the job of the next record, from what nextEventTime() read ahead first;
+    // null at the end of the trace or for a record that is not a job
+    private BatchJob nextJob() {
+        BatchJob job = readAhead.isEmpty() ? readJob() : readAhead.poll();
+        return job == MALFORMED_RECORD ? null : job;
+    }
+
+    // null at the end of the trace, MALFORMED_RECORD for a record that is not
+    // a job
+    BatchJob readJob() {
         try {
-            String line = getBis().readLine();
-            if (line == null) {
-                return false;
+            TraceSource trace = getBis();
+            if (!trace.nextRecord()) {
+                traceExhausted = true;
+                return null;
             }
-            line = line.replace("\t", " ");
-            String[] numbers = line.split(" ");
-            if (numbers.length < 5) {
-                return false;
+            if (trace.fieldCount() < 5) {
+                return MALFORMED_RECORD;
             }
             // Input log format: (time, requiertime, CPU utilization, number of
             // core, dealine for getting to a server buffer)
-            inputTime = Double.parseDouble(numbers[0]);
-            j.setRemainParam(Double.parseDouble(numbers[1]), Double.parseDouble(numbers[2]),
-                    Integer.parseInt(numbers[3]), Integer.parseInt(numbers[4]));
-            j.setStartTime(inputTime);
-            boolean add = waitingList.add(j);
-            // number of jobs which are copied on # of requested nodes
-            totalJob = totalJob + 1 /* +Integer.parseInt(numbers[3]) */;
+            BatchJob j = new BatchJob(environment, dataCenter);
+            j.setRemainParam(trace.getDouble(1), trace.getDouble(2), trace.getInt(3), trace.getInt(4));
+            j.setStartTime(trace.getDouble(0));
             // LOGGER.info("Readed inputTime= " + inputTime + " Job
             // Reqested Time=" + j.startTime+" Total job so far="+ total);
-            return add;
+            return j;
         } catch (IOException ex) {
             LOGGER.info("readJOB EXC readJOB false ");
             Logger.getLogger(Scheduler.class.getName()).log(Level.SEVERE, null, ex);
-            return false;
+            return null;
         }
     }
 
@@ -241,23 +413,11 @@ public class ComputeSystem extends GeneralSystem {
     }
 
     public int numberofRunningNode() {
-        int cnt = 0;
-        for (int i = 0; i < getComputeNodeList().size(); i++) {
-            if (getComputeNodeList().get(i).getReady() > -1) {
-                cnt++;
-            }
-        }
-        return cnt;
+        return getReadyIndex().count(0) + getReadyIndex().count(1);
     }
 
     public int numberofIdleNode() {
-        int cnt = 0;
-        for (int i = 0; i < getComputeNodeList().size(); i++) {
-            if (getComputeNodeList().get(i).getReady() == -1) {
-                cnt++;
-            }
-        }
-        return cnt;
+        return getReadyIndex().count(-1);
     }
 
     public void activeOneNode() {
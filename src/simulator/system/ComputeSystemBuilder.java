@@ -1,16 +1,15 @@
 package simulator.system;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.util.logging.Logger;
 
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
+import simulator.BinaryTraceReader;
 import simulator.Environment;
+import simulator.PrefetchingTraceSource;
 import simulator.SLAViolationLogger;
 import simulator.physical.DataCenter;
 
@@ -30,13 +29,16 @@ public class ComputeSystemBuilder extends SystemBuilder {
             if (childNodes.item(i).getNodeType() == Node.ELEMENT_NODE) {
                 if (childNodes.item(i).getNodeName().equalsIgnoreCase("ResourceAllocationAlg"))
                     ;
-                if (childNodes.item(i).getNodeName().equalsIgnoreCase("Scheduler"))
-                    ; // TODO
+                if (childNodes.item(i).getNodeName().equalsIgnoreCase("Scheduler")) {
+                    ((ComputeSystemPOD) systemPOD).setScheduler(childNodes.item(i).getChildNodes().item(0).getNodeValue().trim());
+                }
                 if (childNodes.item(i).getNodeName().equalsIgnoreCase("Workload")) {
                     String fileName = path + "/" + childNodes.item(i).getChildNodes().item(0).getNodeValue().trim();
                     try {
                         logFile = new File(fileName);
-                        systemPOD.setBis(new BufferedReader(new InputStreamReader(new FileInputStream(logFile))));
+                        systemPOD.setBis(PrefetchingTraceSource.prefetch(
+                                BinaryTraceReader.open(logFile, BinaryTraceReader.Kind.BATCH_JOBS),
+                                BinaryTraceReader.Kind.BATCH_JOBS.getFieldCount()));
                     } catch (IOException e) {
                         LOGGER.info("Uh oh, got an IOException error!" + e.getMessage());
                     }
@@ -2,6 +2,7 @@ package simulator.system;
 
 public class ComputeSystemPOD extends SystemPOD {
 private int priority;
+private String scheduler;
 
 public int getPriority() {
     return priority;
@@ -11,5 +12,13 @@ public void setPriority(int priority) {
         this.priority = priority;
 }
 
+public String getScheduler() {
+    return scheduler;
+}
+
+public void setScheduler(String scheduler) {
+    this.scheduler = scheduler;
+}
+
 
 }
@@ -1,17 +1,17 @@
 package simulator.system;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import simulator.Environment;
-import simulator.ResponseTime;
+import simulator.ResponseTimeHistogram;
+import simulator.TraceSource;
 import simulator.am.ApplicationAM;
-import simulator.jobs.EnterpriseJob;
 import simulator.physical.BladeServer;
+import simulator.physical.IndexedServerList;
+import simulator.physical.ReadyStateIndex;
 import simulator.schedulers.Scheduler;
 
 public final class EnterpriseApp {
@@ -23,16 +23,16 @@ public final class EnterpriseApp {
     private int maxProc = 0;
     private int minProc = 0;
     private int maxExpectedResTime = 0;
-    private List<BladeServer> ComputeNodeList;
+    private IndexedServerList ComputeNodeList;
     // ArrayList <Integer> ComputeNodeIndex;
-    private List<EnterpriseJob> queueApp;
-    private List<ResponseTime> responseList;
+    private RequestQueue queueApp;
+    private ResponseTimeHistogram responseTimes;
     // jobPlacement placement;
     private int timeTreshold = 0;
     private int SLAPercentage;
     private int SLAviolation = 0;
     private int NumofViolation = 0;
-    private BufferedReader bis = null;
+    private TraceSource bis = null;
     private ApplicationAM AM;
     // EnterpriseSystem mySys; //Application knows in which Sys it is located.
     // initialize in EnterpriseSystem
@@ -42,14 +42,26 @@ public final class EnterpriseApp {
     private int numberofBasicNode = 0;
     GeneralSystem parent;
     private Environment environment;
+    private final RequestQueue.ServedRequests responses = new RequestQueue.ServedRequests() {
+        @Override
+        public void served(double numberOfRequests, int responseTime) {
+            addToresponseArray(numberOfRequests, responseTime);
+        }
+    };
+    // positions of the ready nodes in the order they are filled
+    private int[] readyOrder = new int[0];
 
     public EnterpriseApp(EnterpriseApplicationPOD enterpriseApplicationPOD, GeneralSystem parent,
             Environment environment) {
         this.parent = parent;
         this.environment = environment;
-        setComputeNodeList(new ArrayList<BladeServer>());
-        setQueueApp(new ArrayList<EnterpriseJob>());
-        setResponseList(new ArrayList<ResponseTime>());
+        setComputeNodeList(new IndexedServerList(new IndexedServerList.Ranking() {
+            @Override
+            public int rankOf(BladeServer server) {
+                return parent.getNodeRank(server);
+            }
+        }));
+        setQueueApp(new RequestQueue());
         // ComputeNodeIndex=new ArrayList<Integer>();
         id = enterpriseApplicationPOD.getID();
         minProc = enterpriseApplicationPOD.getMinProc();
@@ -65,6 +77,9 @@ public final class EnterpriseApp {
                                                                                // number
         numberofBasicNode = enterpriseApplicationPOD.getNumberofBasicNode();
         maxExpectedResTime = enterpriseApplicationPOD.getMaxExpectedResTime();
+        // exact counts up to the SLA threshold
+        setResponseTimes(new ResponseTimeHistogram(
+                Math.max(ResponseTimeHistogram.DEFAULT_BUCKETS, timeTreshold + 2)));
         bis = enterpriseApplicationPOD.getBIS();
         configSLAallcomputingNode();
         // placement= new jobPlacement(ComputeNodeList) ;
@@ -72,14 +87,8 @@ public final class EnterpriseApp {
     }
 
     public double numberOfWaitingJobs() {
-        double lenJob = 0;
-        for (EnterpriseJob job : getQueueApp()) {
-            if (job.getArrivalTimeOfJob() <= environment.getCurrentLocalTime()) {
-                lenJob = +job.getNumberOfJob(); // FIXME: += instead of = +
-            }
-        }
-
-        return lenJob;
+        // FIXME: the last arrived record only, not the sum of the waiting ones
+        return getQueueApp().lastArrivedRequests(environment.getCurrentLocalTime());
     }
 
     public void configSLAallcomputingNode() {
@@ -105,20 +114,10 @@ public final class EnterpriseApp {
 
     int readingLogFile() {
         try {
-            String line = bis.readLine();
-            if (line == null) {
-                return -2;
-            }
-            line = line.replace("\t", " ");
-            String[] numbers = new String[2];
-            numbers = line.trim().split(" ");
-            if (numbers.length < 2) {
+            if (!bis.nextRecord() || bis.fieldCount() < 2) {
                 return -2;
             }
-            EnterpriseJob j = new EnterpriseJob();
-            j.setArrivalTimeOfJob(Integer.parseInt(numbers[0]));
-            j.setNumberOfJob(Double.parseDouble(numbers[1]));
-            getQueueApp().add(j);
+            getQueueApp().add(bis.getInt(0), bis.getDouble(1));
             return 1;
             // LOGGER.info("Readed inputTime= " + inputTime + " Job
             // Reqested Time=" + j.startTime+" Total job so far="+ total);
@@ -132,8 +131,7 @@ public final class EnterpriseApp {
     int readWebJob() {
         int retReadLogfile = readingLogFile();
         if (!getQueueApp().isEmpty()) {
-            if (getQueueApp().get(0).getArrivalTimeOfJob() == environment.getCurrentLocalTime()
-                    | getQueueApp().get(0).getArrivalTimeOfJob() < environment.getCurrentLocalTime()) {
+            if (getQueueApp().getHeadArrivalTime() <= environment.getCurrentLocalTime()) {
                 return 1;
             } else {
                 return 0;
@@ -192,70 +190,7 @@ public final class EnterpriseApp {
         double capacityOfNode = (int) Math
                 .ceil((getMaxNumberOfRequest() * CPUpercentage) / (getNumberofBasicNode() * 100.0));
         double capacityOfNode_COPY = capacityOfNode;
-        EnterpriseJob jj = new EnterpriseJob();
-        // jj=queueApp.get(0);
-
-        jj = (EnterpriseJob) parent.getScheduler().nextJob(getQueueApp());
-        while (capacityOfNode > 0) {
-            capacityOfNode = capacityOfNode - jj.getNumberOfJob();
-            if (capacityOfNode == 0) {
-                addToresponseArray(jj.getNumberOfJob(),
-                        (environment.getCurrentLocalTime() - jj.getArrivalTimeOfJob() + 1));
-                // LOGGER.info((Main.localTime-wJob.arrivalTimeOfJob+1)*(wJob.numberOfJob)
-                // +"\t"+wJob.numberOfJob+"\t q len="+queueLength);
-                beenRunJobs = beenRunJobs + jj.getNumberOfJob();
-                getQueueApp().remove(jj);
-                break;
-            }
-            if (capacityOfNode < 0) // there are more jobs than capacity
-            {
-                addToresponseArray(capacityOfNode + jj.getNumberOfJob(),
-                        (environment.getCurrentLocalTime() - jj.getArrivalTimeOfJob() + 1));
-                beenRunJobs = beenRunJobs + capacityOfNode + jj.getNumberOfJob();
-                jj.setNumberOfJob(-1 * capacityOfNode);
-                // LOGGER.info(1000.0*Mips);
-                break;
-            }
-            if (capacityOfNode > 0) // still we have capacity to run the jobs
-            {
-                addToresponseArray(jj.getNumberOfJob(),
-                        (environment.getCurrentLocalTime() - jj.getArrivalTimeOfJob() + 1));
-                beenRunJobs = beenRunJobs + jj.getNumberOfJob();
-                getQueueApp().remove(jj);
-                while (!getQueueApp().isEmpty()) {
-
-                    // jj=queueApp.get(0);
-                    jj = (EnterpriseJob) parent.getScheduler().nextJob(getQueueApp());
-                    double copyTedat = capacityOfNode;
-                    capacityOfNode = capacityOfNode - jj.getNumberOfJob();
-                    if (capacityOfNode == 0) {
-                        addToresponseArray(jj.getNumberOfJob(),
-                                (environment.getCurrentLocalTime() - jj.getArrivalTimeOfJob() + 1));
-                        // LOGGER.info(wJob.numberOfJob);
-                        beenRunJobs = beenRunJobs + jj.getNumberOfJob();
-                        getQueueApp().remove(0);
-                        break;
-                    }
-                    if (capacityOfNode < 0) {
-                        // there are more jobs than 1000.0*MIPS
-                        addToresponseArray(copyTedat,
-                                (environment.getCurrentLocalTime() - jj.getArrivalTimeOfJob() + 1));
-                        jj.setNumberOfJob(-1 * capacityOfNode);
-                        beenRunJobs = beenRunJobs + copyTedat;
-                        // LOGGER.info(copyTedat);
-                        break;
-                    }
-                    if (capacityOfNode > 0) {
-                        addToresponseArray(jj.getNumberOfJob(),
-                                (environment.getCurrentLocalTime() - jj.getArrivalTimeOfJob() + 1));
-                        // LOGGER.info(wJob.numberOfJob);
-                        beenRunJobs = beenRunJobs + jj.getNumberOfJob();
-                        getQueueApp().remove(0);
-                    }
-                } // end while
-                break;
-            } // end if
-        }
+        beenRunJobs = getQueueApp().serve(capacityOfNode, environment.getCurrentLocalTime(), responses);
         if (capacityOfNode_COPY == beenRunJobs) // we're done all our capacity
         {
             for (BladeServer bladeServer : getComputeNodeList()) {
@@ -269,27 +204,30 @@ public final class EnterpriseApp {
             LOGGER.info("it is impossible!!!!  Enterprise BoN");
         } else if (beenRunJobs > 0) {
             int k = 0;
+            if (readyOrder.length < numberofReadyNodes) {
+                readyOrder = new int[numberofReadyNodes];
+            }
+            // the nodes nextServer() would pick one after the other
+            int readyNodes = getReadyIndex().fillFromFirst(1, readyOrder);
             for (k = 0; k < numberofReadyNodes; k++) {
-                int serID = parent.getResourceAllocation().nextServer(getComputeNodeList());
-                if (serID == -2) {
+                if (k == readyNodes) {
                     LOGGER.info("enterPrise BoN : servID =-2\t " + k + "\t" + numberofReadyNodes);
                     break;
                 }
-                double CPUspace = (100 - getComputeNodeList().get(serID).getCurrentCPU())
-                        * getComputeNodeList().get(serID).getMips();
+                BladeServer server = getComputeNodeList().get(readyOrder[k]);
+                double CPUspace = (100 - server.getCurrentCPU()) * server.getMips();
                 double reqSpace = (int) Math
                         .ceil(CPUspace * getMaxNumberOfRequest() / (getNumberofBasicNode() * 100.0));
-                getComputeNodeList().get(serID).setCurrentCPU(100);
-                getComputeNodeList().get(serID).setReady(0);
+                server.setCurrentCPU(100);
+                server.setReady(0);
                 beenRunJobs = beenRunJobs - reqSpace;
                 if (beenRunJobs == 0) {
                     k++;
                     break;
                 }
                 if (beenRunJobs < 0) {
-                    getComputeNodeList().get(serID)
-                            .setCurrentCPU((int) Math.ceil((reqSpace + beenRunJobs) * 100 / reqSpace));
-                    getComputeNodeList().get(serID).setReady(1);
+                    server.setCurrentCPU((int) Math.ceil((reqSpace + beenRunJobs) * 100 / reqSpace));
+                    server.setReady(1);
                     k++;
                     break;
                 }
@@ -304,42 +242,25 @@ public final class EnterpriseApp {
     }
 
     public int numberofRunningNode() {
-        int cnt = 0;
-        for (BladeServer bladeServer : getComputeNodeList()) {
-            if (bladeServer.getReady() > -1) {
-                cnt++;
-            }
-        }
-        return cnt;
+        return getReadyIndex().count(0) + getReadyIndex().count(1);
     }
 
     public int numberofIdleNode() {
-        int cnt = 0;
-        for (BladeServer bladeServer : getComputeNodeList()) {
-            if (bladeServer.getReady() == -1) {
-                cnt++;
-            }
-        }
-        return cnt;
+        return getReadyIndex().count(-1);
     }
 
     public void activeOneNode() {
-        int i = 0;
-        for (i = 0; i < getComputeNodeList().size(); i++) {
-            if (getComputeNodeList().get(i).getReady() == -1) {
-                getComputeNodeList().get(i).restart();
-                getComputeNodeList().get(i).setReady(1);
-                break;
-            }
+        int i = getReadyIndex().firstInListOrder(-1);
+        if (i < 0) {
+            throw new IllegalStateException("No idle node to activate in application " + getID());
         }
+        getComputeNodeList().get(i).restart();
+        getComputeNodeList().get(i).setReady(1);
         LOGGER.info("MIIIIPPPSSS    " + getComputeNodeList().get(i).getMips());
     }
 
     void addToresponseArray(double num, int time) {
-        ResponseTime t = new ResponseTime();
-        t.setNumberOfJob(num);
-        t.setResponseTime(time);
-        getResponseList().add(t);
+        getResponseTimes().record(time, num);
     }
 
     public double getAverageCPUutil() {
@@ -365,30 +286,32 @@ public final class EnterpriseApp {
         return ret;
     }
 
-    void destroyApplication() throws IOException {
+    public void destroyApplication() throws IOException {
         for (BladeServer bladeServer : getComputeNodeList()) {
             bladeServer.restart();
             bladeServer.setReady(-2); // ready to be assinged to
             // other application
         }
+        // the servers stop following this bundle's index
+        getComputeNodeList().clear();
         bis.close();
     }
 
-    boolean isThereIdleNode() {
-        for (BladeServer bladeServer : getComputeNodeList()) {
-            if (bladeServer.getReady() == -1) {
-                return true;
-            }
+    void closeTrace() throws IOException {
+        if (bis != null) {
+            bis.close();
         }
-        return false;
+    }
+
+    boolean isThereIdleNode() {
+        return getReadyIndex().count(-1) > 0;
     }
 
     // FIXME: why get index instead of the instance?
     public int myFirstIdleNode() {
-        for (int i = 0; i < getComputeNodeList().size(); i++) {
-            if (getComputeNodeList().get(i).getReady() == -1) {
-                return i;
-            }
+        int first = getReadyIndex().firstInListOrder(-1);
+        if (first >= 0) {
+            return first;
         }
         if (getComputeNodeList().size() > 1) {
             return 0;
@@ -446,24 +369,28 @@ public final class EnterpriseApp {
         return ComputeNodeList;
     }
 
-    public void setComputeNodeList(ArrayList<BladeServer> computeNodeList) {
+    public void setComputeNodeList(IndexedServerList computeNodeList) {
         ComputeNodeList = computeNodeList;
     }
 
-    public List<EnterpriseJob> getQueueApp() {
+    public ReadyStateIndex getReadyIndex() {
+        return ComputeNodeList.getReadyIndex();
+    }
+
+    public RequestQueue getQueueApp() {
         return queueApp;
     }
 
-    public void setQueueApp(ArrayList<EnterpriseJob> queueApp) {
+    public void setQueueApp(RequestQueue queueApp) {
         this.queueApp = queueApp;
     }
 
-    public List<ResponseTime> getResponseList() {
-        return responseList;
+    public ResponseTimeHistogram getResponseTimes() {
+        return responseTimes;
     }
 
-    public void setResponseList(ArrayList<ResponseTime> responseList) {
-        this.responseList = responseList;
+    public void setResponseTimes(ResponseTimeHistogram responseTimes) {
+        this.responseTimes = responseTimes;
     }
 
     public int getTimeTreshold() {
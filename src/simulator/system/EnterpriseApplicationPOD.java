@@ -1,6 +1,6 @@
 package simulator.system;
 
-import java.io.BufferedReader;
+import simulator.TraceSource;
 
 public class EnterpriseApplicationPOD {
     
@@ -12,7 +12,7 @@ public class EnterpriseApplicationPOD {
     private int MaxNumberOfRequest = 0; // # of Request can be handled by number
     private int numberofBasicNode = 0;
     private int maxExpectedResTime = 0;
-    private BufferedReader bis = null;
+    private TraceSource bis = null;
 
     public int getMaxProc() {
         return maxProc;
@@ -78,11 +78,11 @@ public class EnterpriseApplicationPOD {
         this.maxExpectedResTime = maxExpectedResTime;
     }
 
-    public BufferedReader getBIS() {
+    public TraceSource getBIS() {
         return bis;
     }
 
-    public void setBIS(BufferedReader bis) {
+    public void setBIS(TraceSource bis) {
         this.bis = bis;
     }
 }
@@ -45,6 +45,14 @@ public class EnterpriseSystem extends GeneralSystem {
         return applicationList;
     }
 
+    @Override
+    public void closeTraces() throws IOException {
+        for (EnterpriseApp enterpriseApplication : applicationList) {
+            enterpriseApplication.closeTrace();
+        }
+        super.closeTraces();
+    }
+
     public boolean checkForViolation() {
         for (EnterpriseApp enterpriseApplication : applicationList) {
             if (enterpriseApplication.getSLAviolation() > 0) {
@@ -55,22 +63,20 @@ public class EnterpriseSystem extends GeneralSystem {
     }
 
     public boolean isThereFreeNodeforApp() {
-        for (BladeServer bladeServer : getComputeNodeList()) {
-            if (bladeServer.getReady() == -2) {
-                return true;
-            }
-        }
-        return false;
+        return getReadyIndex().count(-2) > 0;
     }
 
     public int numberofAvailableNodetoAlocate() {
-        int n = 0;
-        for (BladeServer bladeServer : getComputeNodeList()) {
-            if (bladeServer.getReady() == -2) {
-                n++;
-            }
-        }
-        return n;
+        return getReadyIndex().count(-2);
+    }
+
+    /**
+     * Next tick at which this system has something to do. Its applications read a
+     * workload record and serve their queues on every tick, so that is always
+     * the next one.
+     */
+    int nextEventTime() {
+        return environment.getCurrentLocalTime() + 1;
     }
 
     boolean runAcycle() throws IOException {
@@ -1,15 +1,13 @@
 package simulator.system;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.util.logging.Logger;
 
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
+import simulator.BinaryTraceReader;
 import simulator.Environment;
 import simulator.SLAViolationLogger;
 import simulator.physical.DataCenter;
@@ -66,7 +64,7 @@ public class EnterpriseSystemBuilder extends SystemBuilder {
                     String fileName = path + "/" + childNodes.item(i).getChildNodes().item(0).getNodeValue().trim();
                     try {
                         logFile = new File(fileName);
-                        enterpriseApplicationPOD.setBIS(new BufferedReader(new InputStreamReader(new FileInputStream(logFile))));
+                        enterpriseApplicationPOD.setBIS(TraceCache.getInstance().open(logFile, BinaryTraceReader.Kind.JOBS));
                     } catch (IOException e) {
                         LOGGER.info("Uh oh, got an IOException error!" + e.getMessage());
                     }
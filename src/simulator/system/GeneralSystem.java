@@ -1,11 +1,14 @@
 package simulator.system;
 
-import java.io.BufferedReader;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
+import simulator.TraceSource;
 import simulator.am.GeneralAM;
 import simulator.physical.BladeServer;
+import simulator.physical.PowerGroup;
+import simulator.physical.ReadyStateIndex;
 import simulator.ra.ResourceAllocation;
 import simulator.schedulers.Scheduler;
 
@@ -15,6 +18,8 @@ import simulator.schedulers.Scheduler;
  */
 public class GeneralSystem {
 
+    // power group changes between exact recomputes of the system power
+    private static final int RESYNC_PERIOD = 1 << 16;
     private String name;
     private ResourceAllocation resourceAllocation;
     private Scheduler scheduler;
@@ -23,13 +28,17 @@ public class GeneralSystem {
     private List<Integer> rackIDs;
     private List<BladeServer> computeNodeList;
     private List<Integer> computeNodeIndex;
-    private BufferedReader bis = null;
+    private TraceSource bis = null;
     protected int SLAviolation;
     private boolean sysIsDone = false;
     private double power = 0;
     private GeneralAM am;
     private int accumolatedViolation = 0;
     private int numberOfActiveServ = 0;
+    // current power of computeNodeList, kept up to date by the servers
+    private PowerGroup powerGroup = new PowerGroup();
+    // computeNodeList by ready state, in the allocation policy's node order
+    private ReadyStateIndex readyIndex = new ReadyStateIndex();
 
     public GeneralSystem(SystemPOD systemPOD) {
         rackIDs = systemPOD.getRackIDs();
@@ -41,10 +50,19 @@ public class GeneralSystem {
     }
 
     void calculatePower() {
-        for (BladeServer bladeServer : getComputeNodeList()) {
-            setPower(getPower() + bladeServer.getPower());
-        }
+        calculatePower(1);
+    }
 
+    // power of the last tick, drawn for ticks ticks
+    void calculatePower(int ticks) {
+        if (powerGroup.getUpdates() >= RESYNC_PERIOD) {
+            double tickPower = 0;
+            for (BladeServer bladeServer : getComputeNodeList()) {
+                tickPower = tickPower + bladeServer.getPower();
+            }
+            powerGroup.resync(tickPower);
+        }
+        setPower(getPower() + powerGroup.getPower() * ticks);
     }
 
     public String getName() {
@@ -97,6 +115,20 @@ public class GeneralSystem {
     
     public void appendBladeServerIntoComputeNodeList(BladeServer bladeServer) {
         computeNodeList.add(bladeServer);
+        bladeServer.setPowerGroup(powerGroup);
+        readyIndex.add(bladeServer, getNodeRank(bladeServer));
+    }
+
+    /**
+     * Rank of bladeServer in the ready state index of this system and in
+     * those of its bundles.
+     */
+    public int getNodeRank(BladeServer bladeServer) {
+        return resourceAllocation == null ? 0 : resourceAllocation.getNodeRank(bladeServer);
+    }
+
+    public ReadyStateIndex getReadyIndex() {
+        return readyIndex;
     }
 
     public List<Integer> getComputeNodeIndex() {
@@ -111,14 +143,23 @@ public class GeneralSystem {
         computeNodeIndex.add(index);
     }
 
-    public BufferedReader getBis() {
+    public TraceSource getBis() {
         return bis;
     }
 
-    public void setBis(BufferedReader bis) {
+    public void setBis(TraceSource bis) {
         this.bis = bis;
     }
 
+    /**
+     * Closes the workload logs the system may still be reading.
+     */
+    public void closeTraces() throws IOException {
+        if (bis != null) {
+            bis.close();
+        }
+    }
+
     public int getSLAviolation() {
         return SLAviolation;
     }
@@ -8,6 +8,7 @@ import java.util.logging.Logger;
 
 import simulator.Environment;
 import simulator.SLAViolationLogger;
+import simulator.TraceSource;
 import simulator.am.InteractiveSystemAM;
 import simulator.physical.BladeServer;
 import simulator.physical.DataCenter;
@@ -42,13 +43,7 @@ public class InteractiveSystem extends GeneralSystem {
     }
 
     public int numberofAvailableNodetoAlocate() {
-        int n = 0;
-        for (BladeServer bladeServer : getComputeNodeList()) {
-            if (bladeServer.getReady() == -2) {
-                n++;
-            }
-        }
-        return n;
+        return getReadyIndex().count(-2);
     }
 
     public boolean checkForViolation() {
@@ -61,6 +56,15 @@ public class InteractiveSystem extends GeneralSystem {
     }
     // Return False means everything is finished!
 
+    /**
+     * Next tick at which this system has something to do. Its users read a
+     * workload record and serve their queues on every tick, so that is always
+     * the next one.
+     */
+    int nextEventTime() {
+        return environment.getCurrentLocalTime() + 1;
+    }
+
     boolean runAcycle() throws IOException {
         if (!getUserList().isEmpty() & checkForViolation()) // &
         // Main.localTime%Main.epochSys==0)
@@ -130,26 +134,20 @@ public class InteractiveSystem extends GeneralSystem {
 
     int readingLogFile() {
         try {
-            String line = getBis().readLine();
-            if (line == null) {
-                return -2;
-            }
-            line = line.replace("\t", " ");
-            String[] numbers = new String[6];
-            numbers = line.trim().split(" ");
-            if (numbers.length < 6) {
+            TraceSource trace = getBis();
+            if (!trace.nextRecord() || trace.fieldCount() < 6) {
                 return -2;
             }
             InteractiveUser test = new InteractiveUser(this, environment);
-            test.setArrivalTime(Integer.parseInt(numbers[0]));
-            test.setMinProc(Integer.parseInt(numbers[1]));
-            test.setMaxProc(Integer.parseInt(numbers[2]));
-            test.setDuration(Double.parseDouble(numbers[3]));
+            test.setArrivalTime(trace.getInt(0));
+            test.setMinProc(trace.getInt(1));
+            test.setMaxProc(trace.getInt(2));
+            test.setDuration(trace.getDouble(3));
             test.setRemain(test.getDuration()); // for now I've not used that!
-            test.setLogFileName(numbers[4]);
-            test.setMaxExpectedResTime(Integer.parseInt(numbers[5]));
-            test.setMaxNumberOfRequest(Integer.parseInt(numbers[6]));
-            test.setNumberofBasicNode(Integer.parseInt(numbers[7]));
+            test.setLogFileName(trace.getString(4));
+            test.setMaxExpectedResTime(trace.getInt(5));
+            test.setMaxNumberOfRequest(trace.getInt(6));
+            test.setNumberofBasicNode(trace.getInt(7));
             getWaitingQueueWL().add(test);
             return 1;
             // LOGGER.info("Readed inputTime= " + inputTime + " Job
@@ -203,6 +201,14 @@ public class InteractiveSystem extends GeneralSystem {
         UserList = userList;
     }
 
+    @Override
+    public void closeTraces() throws IOException {
+        for (InteractiveUser interactiveUser : getUserList()) {
+            interactiveUser.closeTrace();
+        }
+        super.closeTraces();
+    }
+
     public List<InteractiveUser> getWaitingQueueWL() {
         return waitingQueueWL;
     }
@@ -1,10 +1,8 @@
 package simulator.system;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.util.logging.Logger;
 
 import org.w3c.dom.Node;
@@ -12,6 +10,7 @@ import org.w3c.dom.NodeList;
 
 import simulator.Environment;
 import simulator.SLAViolationLogger;
+import simulator.TraceReader;
 import simulator.physical.DataCenter;
 
 public class InteractiveSystemBuilder extends SystemBuilder {
@@ -47,7 +46,7 @@ public class InteractiveSystemBuilder extends SystemBuilder {
                     String fileName = path + "/" + childNodes.item(i).getChildNodes().item(0).getNodeValue().trim();
                     try {
                         logFile = new File(fileName);
-                        systemPOD.setBis(new BufferedReader(new InputStreamReader(new FileInputStream(logFile))));
+                        systemPOD.setBis(new TraceReader(new FileInputStream(logFile)));
                     } catch (IOException e) {
                         LOGGER.info("Uh oh, got an IOException error!" + e.getMessage());
                     }
@@ -1,20 +1,20 @@
 package simulator.system;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import simulator.BinaryTraceReader;
 import simulator.Environment;
-import simulator.ResponseTime;
+import simulator.ResponseTimeHistogram;
+import simulator.TraceSource;
 import simulator.am.IteractiveUserAM;
-import simulator.jobs.InteractiveJob;
 import simulator.physical.BladeServer;
+import simulator.physical.IndexedServerList;
+import simulator.physical.ReadyStateIndex;
 import simulator.schedulers.Scheduler;
 
 public class InteractiveUser {
@@ -29,12 +29,12 @@ public class InteractiveUser {
     private int id = 0;
     private String logFileName;
     private File logFile = null;
-    private List<BladeServer> computeNodeList;
+    private IndexedServerList computeNodeList;
     private List<Integer> computeNodeIndex;
-    private List<InteractiveJob> queueWL;
-    private List<ResponseTime> responseList;
+    private RequestQueue queueWL;
+    private ResponseTimeHistogram responseTimes;
     // jobPlacement placement;
-    private BufferedReader bis = null;
+    private TraceSource bis = null;
     // SLA
     private int SLAviolation = 0;
     private IteractiveUserAM AM;
@@ -45,13 +45,26 @@ public class InteractiveUser {
     private int numberofBasicNode = 0;
     private GeneralSystem parent;
     private Environment environment;
+    private final RequestQueue.ServedRequests responses = new RequestQueue.ServedRequests() {
+        @Override
+        public void served(double numberOfRequests, int responseTime) {
+            addToresponseArray(numberOfRequests, responseTime);
+        }
+    };
+    // positions of the ready nodes in the order they are filled
+    private int[] readyOrder = new int[0];
 
     public InteractiveUser(GeneralSystem parent, Environment environment) {
         this.environment = environment;
-        setComputeNodeList(new ArrayList<BladeServer>());
+        setComputeNodeList(new IndexedServerList(new IndexedServerList.Ranking() {
+            @Override
+            public int rankOf(BladeServer server) {
+                return parent.getNodeRank(server);
+            }
+        }));
         setComputeNodeIndex(new ArrayList<Integer>());
-        setQueueWL(new ArrayList<InteractiveJob>());
-        setResponseList(new ArrayList<ResponseTime>());
+        setQueueWL(new RequestQueue());
+        setResponseTimes(new ResponseTimeHistogram());
         setLogFileName(new String());
         // placement=new jobPlacement(ComputeNodeList);
         setAM(new IteractiveUserAM((InteractiveSystem) parent, this, environment));
@@ -71,27 +84,17 @@ public class InteractiveUser {
         if (bis == null) {
             try {
                 logFile = new File(getLogFileName());
-                bis = new BufferedReader(new InputStreamReader(new FileInputStream(logFile)));
+                bis = TraceCache.getInstance().open(logFile, BinaryTraceReader.Kind.JOBS);
             } catch (IOException e) {
                 LOGGER.warning("Uh oh, got an IOException error!" + e.getMessage());
             } finally {
             }
         }
         try {
-            String line = bis.readLine();
-            if (line == null) {
-                return -2;
-            }
-            line = line.replace("\t", " ");
-            String[] numbers = new String[2];
-            numbers = line.trim().split(" ");
-            if (numbers.length < 2) {
+            if (!bis.nextRecord() || bis.fieldCount() < 2) {
                 return -2;
             }
-            InteractiveJob j = new InteractiveJob();
-            j.setArrivalTimeOfJob(Integer.parseInt(numbers[0]));
-            j.setNumberOfJob(Double.parseDouble(numbers[1]) * 50);
-            getQueueWL().add(j);
+            getQueueWL().add(bis.getInt(0), bis.getDouble(1) * 50);
             return 1;
             // LOGGER.info("Readed inputTime= " + inputTime + " Job
             // Reqested Time=" + j.startTime+" Total job so far="+ total);
@@ -112,8 +115,7 @@ public class InteractiveUser {
     int readWebJob() {
         int retReadLogfile = readingLogFile();
         if (!getQueueWL().isEmpty()) {
-            if (getQueueWL().get(0).getArrivalTimeOfJob() == environment.getCurrentLocalTime()
-                    | getQueueWL().get(0).getArrivalTimeOfJob() < environment.getCurrentLocalTime()) {
+            if (getQueueWL().getHeadArrivalTime() <= environment.getCurrentLocalTime()) {
                 return 1;
             } else {
                 return 0;
@@ -154,69 +156,7 @@ public class InteractiveUser {
         double capacityOfNode = (int) Math
                 .ceil((getMaxNumberOfRequest() * CPUpercentage) / (getNumberofBasicNode() * 100.0));
         double capacityOfNode_COPY = capacityOfNode;
-        InteractiveJob jj = new InteractiveJob();
-        // jj=queueWL.get(0);
-        jj = (InteractiveJob) parent.getScheduler().nextJob(getQueueWL());
-        while (capacityOfNode > 0) {
-            capacityOfNode = capacityOfNode - jj.getNumberOfJob();
-            if (capacityOfNode == 0) {
-                addToresponseArray(jj.getNumberOfJob(),
-                        (environment.getCurrentLocalTime() - jj.getArrivalTimeOfJob() + 1));
-                // LOGGER.info((Main.localTime-wJob.arrivalTimeOfJob+1)*(wJob.numberOfJob)
-                // +"\t"+wJob.numberOfJob+"\t q len="+queueLength);
-                beenRunJobs = beenRunJobs + jj.getNumberOfJob();
-                getQueueWL().remove(jj);
-                break;
-            }
-            if (capacityOfNode < 0) // there are more jobs than capacity
-            {
-                addToresponseArray(capacityOfNode + jj.getNumberOfJob(),
-                        (environment.getCurrentLocalTime() - jj.getArrivalTimeOfJob() + 1));
-                beenRunJobs = beenRunJobs + capacityOfNode + jj.getNumberOfJob();
-                jj.setNumberOfJob(-1 * capacityOfNode);
-                // LOGGER.info(1000.0*Mips);
-                break;
-            }
-            if (capacityOfNode > 0) {
-                // still we have capacity to run the jobs
-
-                addToresponseArray(jj.getNumberOfJob(),
-                        (environment.getCurrentLocalTime() - jj.getArrivalTimeOfJob() + 1));
-                beenRunJobs = beenRunJobs + jj.getNumberOfJob();
-                getQueueWL().remove(jj);
-                while (!getQueueWL().isEmpty()) {
-                    // jj=queueWL.get(0);
-                    jj = (InteractiveJob) parent.getScheduler().nextJob(getQueueWL());
-                    double copyTedat = capacityOfNode;
-                    capacityOfNode = capacityOfNode - jj.getNumberOfJob();
-                    if (capacityOfNode == 0) {
-                        addToresponseArray(jj.getNumberOfJob(),
-                                (environment.getCurrentLocalTime() - jj.getArrivalTimeOfJob() + 1));
-                        // LOGGER.info(wJob.numberOfJob);
-                        beenRunJobs = beenRunJobs + jj.getNumberOfJob();
-                        getQueueWL().remove(0);
-                        break;
-                    }
-                    if (capacityOfNode < 0) {
-                        // there are more jobs than 1000.0*MIPS
-                        addToresponseArray(copyTedat,
-                                (environment.getCurrentLocalTime() - jj.getArrivalTimeOfJob() + 1));
-                        jj.setNumberOfJob(-1 * capacityOfNode);
-                        beenRunJobs = beenRunJobs + copyTedat;
-                        // LOGGER.info(copyTedat);
-                        break;
-                    }
-                    if (capacityOfNode > 0) {
-                        addToresponseArray(jj.getNumberOfJob(),
-                                (environment.getCurrentLocalTime() - jj.getArrivalTimeOfJob() + 1));
-                        // LOGGER.info(wJob.numberOfJob);
-                        beenRunJobs = beenRunJobs + jj.getNumberOfJob();
-                        getQueueWL().remove(0);
-                    }
-                }
-                break;
-            }
-        }
+        beenRunJobs = getQueueWL().serve(capacityOfNode, environment.getCurrentLocalTime(), responses);
         if (capacityOfNode_COPY == beenRunJobs) // we're done all our capacity
         {
             for (BladeServer bladeServer : getComputeNodeList()) {
@@ -228,27 +168,30 @@ public class InteractiveUser {
             LOGGER.warning("it is impossible!!!!  webbased BoN");
         } else if (beenRunJobs > 0) {
             int k = 0;
+            if (readyOrder.length < numberofReadyNodes) {
+                readyOrder = new int[numberofReadyNodes];
+            }
+            // the nodes nextServer() would pick one after the other
+            int readyNodes = getReadyIndex().fillFromFirst(1, readyOrder);
             for (k = 0; k < numberofReadyNodes; k++) {
-                int serID = parent.getResourceAllocation().nextServer(getComputeNodeList());
-                if (serID == -2) {
+                if (k == readyNodes) {
                     LOGGER.info("enterPrise BoN : servID =-2\t " + k + "\t" + numberofReadyNodes);
                     break;
                 }
-                double CPUspace = (100 - getComputeNodeList().get(serID).getCurrentCPU())
-                        * getComputeNodeList().get(serID).getMips();
+                BladeServer server = getComputeNodeList().get(readyOrder[k]);
+                double CPUspace = (100 - server.getCurrentCPU()) * server.getMips();
                 double reqSpace = (int) Math
                         .ceil(CPUspace * getMaxNumberOfRequest() / (getNumberofBasicNode() * 100.0));
-                getComputeNodeList().get(serID).setCurrentCPU(100);
-                getComputeNodeList().get(serID).setReady(0);
+                server.setCurrentCPU(100);
+                server.setReady(0);
                 beenRunJobs = beenRunJobs - reqSpace;
                 if (beenRunJobs == 0) {
                     k++;
                     break;
                 }
                 if (beenRunJobs < 0) {
-                    getComputeNodeList().get(serID)
-                            .setCurrentCPU((int) Math.ceil((reqSpace + beenRunJobs) * 100 / reqSpace));
-                    getComputeNodeList().get(serID).setReady(1);
+                    server.setCurrentCPU((int) Math.ceil((reqSpace + beenRunJobs) * 100 / reqSpace));
+                    server.setReady(1);
                     k++;
                     break;
                 }
@@ -270,10 +213,7 @@ public class InteractiveUser {
         if (time > getMaxExpectedResTime()) {
             setSLAviolation(getSLAviolation() + 1);
         }
-        ResponseTime resTime = new ResponseTime();
-        resTime.setNumberOfJob(num);
-        resTime.setResponseTime(time);
-        getResponseList().add(resTime);
+        getResponseTimes().record(time, num);
     }
 
     void setReadyFlag() {
@@ -306,36 +246,30 @@ public class InteractiveUser {
         for (BladeServer bladeServer : getComputeNodeList()) {
             bladeServer.restart();
         }
-
+        // the servers stop following this bundle's index
+        getComputeNodeList().clear();
         bis.close();
     }
 
-    public int numberofRunningNode() {
-        int cnt = 0;
-        for (BladeServer bladeServer : getComputeNodeList()) {
-            if (bladeServer.getReady() > -1) {
-                cnt++;
-            }
+    void closeTrace() throws IOException {
+        if (bis != null) {
+            bis.close();
         }
-        return cnt;
+    }
+
+    public int numberofRunningNode() {
+        return getReadyIndex().count(0) + getReadyIndex().count(1);
     }
 
     public int numberofIdleNode() {
-        int cnt = 0;
-        for (BladeServer bladeServer : getComputeNodeList()) {
-            if (bladeServer.getReady() == -1) {
-                cnt++;
-            }
-        }
-        return cnt;
+        return getReadyIndex().count(-1);
     }
 
     // FIXME: why return index instead instance?
     public int myFirstIdleNode() {
-        for (int i = 0; i < getComputeNodeList().size(); i++) {
-            if (getComputeNodeList().get(i).getReady() == -1) {
-                return i;
-            }
+        int first = getReadyIndex().firstInListOrder(-1);
+        if (first >= 0) {
+            return first;
         }
         if (getComputeNodeList().size() > 1) {
             return 0;
@@ -344,26 +278,18 @@ public class InteractiveUser {
     }
 
     public void activeOneNode() {
-        int i = 0;
-        for (i = 0; i < getComputeNodeList().size(); i++) {
-            if (getComputeNodeList().get(i).getReady() == -1) {
-                getComputeNodeList().get(i).restart();
-                getComputeNodeList().get(i).setReady(1);
-                break;
-            }
+        int i = getReadyIndex().firstInListOrder(-1);
+        if (i < 0) {
+            throw new IllegalStateException("No idle node to activate in user " + getID());
         }
+        getComputeNodeList().get(i).restart();
+        getComputeNodeList().get(i).setReady(1);
         LOGGER.info("MIIIIPPPSSS    " + getComputeNodeList().get(i).getMips());
     }
 
     public double numberOfWaitingJobs() {
-        double lenJob = 0;
-        for (InteractiveJob job : getQueueWL()) {
-            if (job.getArrivalTimeOfJob() <= environment.getCurrentLocalTime()) {
-                lenJob = +job.getNumberOfJob(); // FIXME: += instead of =+
-            }
-        }
-
-        return lenJob;
+        // FIXME: the last arrived record only, not the sum of the waiting ones
+        return getQueueWL().lastArrivedRequests(environment.getCurrentLocalTime());
     }
 
     public double getAverageCPUUtilization() {
@@ -425,10 +351,14 @@ public class InteractiveUser {
         return computeNodeList;
     }
 
-    private void setComputeNodeList(List<BladeServer> computeNodeList) {
+    private void setComputeNodeList(IndexedServerList computeNodeList) {
         this.computeNodeList = computeNodeList;
     }
 
+    public ReadyStateIndex getReadyIndex() {
+        return computeNodeList.getReadyIndex();
+    }
+
     public List<Integer> getComputeNodeIndex() {
         return computeNodeIndex;
     }
@@ -437,20 +367,20 @@ public class InteractiveUser {
         this.computeNodeIndex = computeNodeIndex;
     }
 
-    public List<InteractiveJob> getQueueWL() {
+    public RequestQueue getQueueWL() {
         return queueWL;
     }
 
-    private void setQueueWL(List<InteractiveJob> queueWL) {
+    private void setQueueWL(RequestQueue queueWL) {
         this.queueWL = queueWL;
     }
 
-    public List<ResponseTime> getResponseList() {
-        return responseList;
+    public ResponseTimeHistogram getResponseTimes() {
+        return responseTimes;
     }
 
-    private void setResponseList(List<ResponseTime> responseList) {
-        this.responseList = responseList;
+    private void setResponseTimes(ResponseTimeHistogram responseTimes) {
+        this.responseTimes = responseTimes;
     }
 
     public int getSLAviolation() {
@@ -0,0 +1,169 @@
+package simulator.system;
+
+/**
+ * The waiting requests of an enterprise application or an interactive user,
+ * as (arrival time, number of requests) records in a ring buffer. Records
+ * come in arrival order and leave from the head, a partly served head shrinks
+ * in place, and the total of the requests that have arrived is kept as the
+ * records come and go, so none of it walks the queue.
+ */
+public class RequestQueue {
+
+    /**
+     * Told about every chunk of requests serve() takes off the queue.
+     */
+    public interface ServedRequests {
+        void served(double numberOfRequests, int responseTime);
+    }
+
+    private int[] arrivalTimes = new int[16];
+    private double[] requests = new double[16];
+    private int head = 0;
+    private int size = 0;
+    // records before this one, counted from the head, have arrived
+    private int arrived = 0;
+    private double arrivedRequests = 0;
+    private double totalRequests = 0;
+
+    public void add(int arrivalTime, double numberOfRequests) {
+        if (size == arrivalTimes.length) {
+            grow();
+        }
+        int tail = (head + size) & (arrivalTimes.length - 1);
+        arrivalTimes[tail] = arrivalTime;
+        requests[tail] = numberOfRequests;
+        size++;
+        totalRequests += numberOfRequests;
+    }
+
+    private void grow() {
+        int[] newArrivalTimes = new int[2 * size];
+        double[] newRequests = new double[2 * size];
+        int first = arrivalTimes.length - head;
+        System.arraycopy(arrivalTimes, head, newArrivalTimes, 0, first);
+        System.arraycopy(arrivalTimes, 0, newArrivalTimes, first, head);
+        System.arraycopy(requests, head, newRequests, 0, first);
+        System.arraycopy(requests, 0, newRequests, first, head);
+        arrivalTimes = newArrivalTimes;
+        requests = newRequests;
+        head = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getHeadArrivalTime() {
+        checkNotEmpty();
+        return arrivalTimes[head];
+    }
+
+    public double getHeadRequests() {
+        checkNotEmpty();
+        return requests[head];
+    }
+
+    /**
+     * Leaves numberOfRequests of the head record waiting.
+     */
+    public void setHeadRequests(double numberOfRequests) {
+        checkNotEmpty();
+        double change = numberOfRequests - requests[head];
+        requests[head] = numberOfRequests;
+        totalRequests += change;
+        if (arrived > 0) {
+            arrivedRequests += change;
+        }
+    }
+
+    public void removeHead() {
+        checkNotEmpty();
+        if (arrived > 0) {
+            arrived--;
+            arrivedRequests -= requests[head];
+        }
+        totalRequests -= requests[head];
+        head = (head + 1) & (arrivalTimes.length - 1);
+        size--;
+        if (size == 0) {
+            // no rounding left over from the removed records
+            totalRequests = 0;
+            arrivedRequests = 0;
+        }
+    }
+
+    /**
+     * Serves up to capacity requests from the head at time now: whole records
+     * leave the queue and the record the capacity runs out in keeps what is
+     * left of it. Returns the number of requests served.
+     */
+    public double serve(double capacity, int now, ServedRequests served) {
+        double left = capacity;
+        double done = 0;
+        while (left > 0 && size > 0) {
+            double headRequests = requests[head];
+            int responseTime = now - arrivalTimes[head] + 1;
+            if (headRequests > left) {
+                served.served(left, responseTime);
+                done += left;
+                setHeadRequests(headRequests - left);
+                break;
+            }
+            served.served(headRequests, responseTime);
+            done += headRequests;
+            left -= headRequests;
+            removeHead();
+        }
+        return done;
+    }
+
+    public double getTotalRequests() {
+        return totalRequests;
+    }
+
+    /**
+     * Requests that arrived at or before now. Calls have to come with a now
+     * that never goes back.
+     */
+    public double waitingRequests(int now) {
+        arriveUntil(now);
+        return arrivedRequests;
+    }
+
+    /**
+     * Requests of the last record that arrived at or before now, 0 if none
+     * has. Calls have to come with a now that never goes back.
+     */
+    public double lastArrivedRequests(int now) {
+        arriveUntil(now);
+        if (arrived == 0) {
+            return 0;
+        }
+        return requests[(head + arrived - 1) & (arrivalTimes.length - 1)];
+    }
+
+    private void arriveUntil(int now) {
+        while (arrived < size && arrivalTimes[(head + arrived) & (arrivalTimes.length - 1)] <= now) {
+            arrivedRequests += requests[(head + arrived) & (arrivalTimes.length - 1)];
+            arrived++;
+        }
+    }
+
+    public void clear() {
+        head = 0;
+        size = 0;
+        arrived = 0;
+        arrivedRequests = 0;
+        totalRequests = 0;
+    }
+
+    private void checkNotEmpty() {
+        if (size == 0) {
+            throw new IllegalStateException("No requests are waiting");
+        }
+    }
+}
@@ -1,13 +1,14 @@
 package simulator.system;
 
-import java.io.BufferedReader;
 import java.util.ArrayList;
 import java.util.List;
 
+import simulator.TraceSource;
+
 public abstract class SystemPOD {
 
     private List<Integer> rackIDs = new ArrayList<Integer>();
-    private BufferedReader bis = null;
+    private TraceSource bis = null;
     private int numberOfNode;
     
     public void setNumberofNode(int n) {
@@ -22,11 +23,11 @@ public abstract class SystemPOD {
         rackIDs.add(rackID);
     }
 
-    public BufferedReader getBis() {
+    public TraceSource getBis() {
         return bis;
     }
 
-    public void setBis(BufferedReader bis) {
+    public void setBis(TraceSource bis) {
         this.bis = bis;
     }
     
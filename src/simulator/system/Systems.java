@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Observable;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import simulator.Environment;
@@ -77,6 +78,7 @@ public class Systems extends Observable {
                 // LOGGER.info("Number of violation:
                 // "+ES.get(i).accumolatedViolation);
 
+                closeTraces(enterpriseSystems.get(i));
                 enterpriseSystems.remove(i);
                 i--;
             }
@@ -91,6 +93,7 @@ public class Systems extends Observable {
                         "Interactive sys: Number of violation: " + interactiveSystems.get(i).getAccumolatedViolation());
                 LOGGER.info("Computing Power Consumed by  " + interactiveSystems.get(i).getName() + " is: "
                         + interactiveSystems.get(i).getPower());
+                closeTraces(interactiveSystems.get(i));
                 interactiveSystems.remove(i);
                 i--;
 
@@ -138,14 +141,41 @@ public class Systems extends Observable {
     }
     
     public void calculatePower() {
+        calculatePower(1);
+    }
+
+    public void calculatePower(int ticks) {
         for (EnterpriseSystem enterpriseSystem : enterpriseSystems) {
-            enterpriseSystem.calculatePower();
+            enterpriseSystem.calculatePower(ticks);
         }
         for (ComputeSystem computeSystem : computeSystems) {
-            computeSystem.calculatePower();
+            computeSystem.calculatePower(ticks);
         }
         for (InteractiveSystem interactiveSystem : interactiveSystems) {
-            interactiveSystem.calculatePower();
+            interactiveSystem.calculatePower(ticks);
+        }
+    }
+
+    /**
+     * Earliest tick at which any system has something to do.
+     */
+    public int nextEventTime() {
+        int next = Integer.MAX_VALUE;
+        for (EnterpriseSystem enterpriseSystem : enterpriseSystems) {
+            next = Math.min(next, enterpriseSystem.nextEventTime());
+        }
+        for (ComputeSystem computeSystem : computeSystems) {
+            next = Math.min(next, computeSystem.nextEventTime());
+        }
+        for (InteractiveSystem interactiveSystem : interactiveSystems) {
+            next = Math.min(next, interactiveSystem.nextEventTime());
+        }
+        return next == Integer.MAX_VALUE ? environment.getCurrentLocalTime() + 1 : next;
+    }
+
+    public void skipQuietTicksUntil(int time) {
+        for (ComputeSystem computeSystem : computeSystems) {
+            computeSystem.skipQuietTicksUntil(time);
         }
     }
     
@@ -155,6 +185,30 @@ public class Systems extends Observable {
         }
     }
 
+    /**
+     * Closes the workload logs of the systems left, so no log stays open and
+     * no thread keeps reading one once the simulation is over.
+     */
+    public void closeTraces() {
+        for (EnterpriseSystem enterpriseSystem : enterpriseSystems) {
+            closeTraces(enterpriseSystem);
+        }
+        for (InteractiveSystem interactiveSystem : interactiveSystems) {
+            closeTraces(interactiveSystem);
+        }
+        for (ComputeSystem computeSystem : computeSystems) {
+            closeTraces(computeSystem);
+        }
+    }
+
+    private void closeTraces(GeneralSystem system) {
+        try {
+            system.closeTraces();
+        } catch (IOException ex) {
+            LOGGER.log(Level.SEVERE, "Could not close the logs of " + system.getName(), ex);
+        }
+    }
+
     public void addEnterpriseSystem(EnterpriseSystem eS1) {
         this.enterpriseSystems.add(eS1);
     }
@@ -0,0 +1,161 @@
+package simulator.system;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import simulator.BinaryTraceReader;
+import simulator.DoubleTraceSource;
+import simulator.TraceSource;
+
+/**
+ * Workload logs parsed once per process. Every distinct log is read into an
+ * immutable array of doubles the first time it is opened; each open() after
+ * that hands out an independent cursor over the same array, so applications
+ * and users that replay the same log, in one run or in runs sharing the JVM,
+ * neither read nor store it again. A log is read again when it or its binary
+ * sibling changed on disk.
+ */
+public final class TraceCache {
+
+    private static final TraceCache INSTANCE = new TraceCache();
+
+    private final Map<String, ParsedTrace> traces = new HashMap<String, ParsedTrace>();
+
+    public static TraceCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * A cursor at the start of the log in file, with records of kind.
+     */
+    public TraceSource open(File file, BinaryTraceReader.Kind kind) throws IOException {
+        return new Cursor(parsed(file, kind));
+    }
+
+    public synchronized int size() {
+        return traces.size();
+    }
+
+    public synchronized void clear() {
+        traces.clear();
+    }
+
+    private synchronized ParsedTrace parsed(File file, BinaryTraceReader.Kind kind) throws IOException {
+        String key = kind + ":" + file.getCanonicalPath();
+        ParsedTrace parsed = traces.get(key);
+        if (parsed == null || !parsed.isCurrent(file)) {
+            parsed = new ParsedTrace(file, kind);
+            traces.put(key, parsed);
+        }
+        return parsed;
+    }
+
+    // the records of one log, never changed after they are read
+    private static final class ParsedTrace {
+        private final long length;
+        private final long lastModified;
+        // 0 for a binary sibling that is not there
+        private final long binaryLength;
+        private final long binaryLastModified;
+        private final int fields;
+        private final double[] values;
+        private final int records;
+        // records with fewer than fields fields, in record order, and their
+        // field counts; every other record has all the fields
+        private final int[] shortRecords;
+        private final int[] shortCounts;
+
+        ParsedTrace(File file, BinaryTraceReader.Kind kind) throws IOException {
+            length = file.length();
+            lastModified = file.lastModified();
+            File binaryFile = BinaryTraceReader.binarySibling(file);
+            binaryLength = binaryFile.length();
+            binaryLastModified = binaryFile.lastModified();
+            fields = kind.getFieldCount();
+            double[] readValues = new double[1024 * fields];
+            int[] readShort = new int[4];
+            int[] readShortCounts = new int[4];
+            int read = 0;
+            int numberOfShort = 0;
+            TraceSource source = BinaryTraceReader.open(file, kind);
+            try {
+                while (source.nextRecord()) {
+                    if (read * fields == readValues.length) {
+                        readValues = Arrays.copyOf(readValues, 2 * read * fields);
+                    }
+                    int count = Math.min(source.fieldCount(), fields);
+                    for (int field = 0; field < count; field++) {
+                        readValues[read * fields + field] = source.getDouble(field);
+                    }
+                    if (count < fields) {
+                        if (numberOfShort == readShort.length) {
+                            readShort = Arrays.copyOf(readShort, 2 * numberOfShort);
+                            readShortCounts = Arrays.copyOf(readShortCounts, 2 * numberOfShort);
+                        }
+                        readShort[numberOfShort] = read;
+                        readShortCounts[numberOfShort++] = count;
+                    }
+                    read++;
+                }
+            } finally {
+                source.close();
+            }
+            values = Arrays.copyOf(readValues, read * fields);
+            records = read;
+            shortRecords = Arrays.copyOf(readShort, numberOfShort);
+            shortCounts = Arrays.copyOf(readShortCounts, numberOfShort);
+        }
+
+        boolean isCurrent(File file) {
+            File binaryFile = BinaryTraceReader.binarySibling(file);
+            return length == file.length() && lastModified == file.lastModified()
+                    && binaryLength == binaryFile.length() && binaryLastModified == binaryFile.lastModified();
+        }
+    }
+
+    private static final class Cursor extends DoubleTraceSource {
+        private final ParsedTrace trace;
+        private int record = -1;
+        private int count = 0;
+        // first of the short records that is not before record
+        private int nextShort = 0;
+
+        Cursor(ParsedTrace trace) {
+            this.trace = trace;
+        }
+
+        @Override
+        public boolean nextRecord() {
+            if (record < trace.records) {
+                record++;
+            }
+            if (record == trace.records) {
+                count = 0;
+                return false;
+            }
+            while (nextShort < trace.shortRecords.length && trace.shortRecords[nextShort] < record) {
+                nextShort++;
+            }
+            boolean isShort = nextShort < trace.shortRecords.length && trace.shortRecords[nextShort] == record;
+            count = isShort ? trace.shortCounts[nextShort] : trace.fields;
+            return true;
+        }
+
+        @Override
+        public int fieldCount() {
+            return count;
+        }
+
+        @Override
+        protected double value(int field) {
+            return trace.values[record * trace.fields + field];
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
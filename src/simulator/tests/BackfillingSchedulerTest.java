@@ -0,0 +1,201 @@
+package simulator.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import simulator.jobs.BatchJob;
+import simulator.schedulers.ArrivalJobQueue;
+import simulator.schedulers.BackfillingScheduler;
+import simulator.schedulers.FIFOScheduler;
+import simulator.schedulers.LeastRemainFirstScheduler;
+import simulator.schedulers.Schedulers;
+
+public class BackfillingSchedulerTest {
+
+    // a system of nodes that each take one job at a time
+    private static class Nodes implements BackfillingScheduler.JobStarter {
+        private int free;
+        private final List<BatchJob> started = new ArrayList<BatchJob>();
+
+        Nodes(int free) {
+            this.free = free;
+        }
+
+        @Override
+        public int freeNodes() {
+            return free;
+        }
+
+        @Override
+        public boolean start(BatchJob job) {
+            if (job.getNumOfNode() > free) {
+                return false;
+            }
+            free -= job.getNumOfNode();
+            started.add(job);
+            return true;
+        }
+
+        // the started jobs do ticks units of work
+        void run(int ticks) {
+            for (BatchJob job : started) {
+                for (int i = 0; i < job.getNumOfNode(); i++) {
+                    job.getRemain()[i] = Math.max(0, job.getRemain()[i] - ticks);
+                }
+            }
+        }
+
+        void finish(BatchJob job) {
+            for (int i = 0; i < job.getNumOfNode(); i++) {
+                job.getRemain()[i] = 0;
+            }
+            free += job.getNumOfNode();
+        }
+    }
+
+    private BatchJob job(double reqTime, int nodes, double startTime) {
+        BatchJob job = new BatchJob(null, null);
+        job.setRemainParam(reqTime, 100, nodes, 1000);
+        job.setStartTime(startTime);
+        return job;
+    }
+
+    // 4 nodes: a job holding 3 of them until 100, then a job that needs all 4
+    private ArrivalJobQueue<BatchJob> blockedHead(BackfillingScheduler scheduler, Nodes nodes) {
+        ArrivalJobQueue<BatchJob> queue = new ArrivalJobQueue<BatchJob>();
+        queue.offer(job(100, 3, 0));
+        scheduler.schedule(queue, 0, nodes);
+        queue.offer(job(50, 4, 1));
+        return queue;
+    }
+
+    @Test
+    public void testEasyBackfillsJobsThatEndBeforeTheReservation() {
+        BackfillingScheduler scheduler = new BackfillingScheduler(BackfillingScheduler.Mode.EASY);
+        Nodes nodes = new Nodes(4);
+        ArrivalJobQueue<BatchJob> queue = blockedHead(scheduler, nodes);
+        BatchJob tooLong = job(200, 1, 2);
+        BatchJob shortJob = job(90, 1, 3);
+        queue.offer(tooLong);
+        queue.offer(shortJob);
+        nodes.run(10);
+        assertTrue(scheduler.schedule(queue, 10, nodes));
+        assertEquals(shortJob, nodes.started.get(1));
+        assertEquals(2, nodes.started.size());
+        assertEquals(2, queue.size());
+    }
+
+    @Test
+    public void testEasyStartsTheHeadOnceItsNodesAreBack() {
+        BackfillingScheduler scheduler = new BackfillingScheduler(BackfillingScheduler.Mode.EASY);
+        Nodes nodes = new Nodes(4);
+        ArrivalJobQueue<BatchJob> queue = blockedHead(scheduler, nodes);
+        nodes.finish(nodes.started.get(0));
+        assertFalse(scheduler.schedule(queue, 60, nodes));
+        assertTrue(queue.isEmpty());
+        assertEquals(0, nodes.freeNodes());
+        // the finished job is dropped from the profile
+        assertEquals(110, scheduler.getProfile().shadowTime(0, 4, 60));
+        assertEquals(1, scheduler.getProfile().size());
+    }
+
+    private int startedAt80(BackfillingScheduler.Mode mode) {
+        BackfillingScheduler scheduler = new BackfillingScheduler(mode);
+        Nodes nodes = new Nodes(4);
+        ArrivalJobQueue<BatchJob> queue = new ArrivalJobQueue<BatchJob>();
+        queue.offer(job(100, 3, 0));
+        scheduler.schedule(queue, 0, nodes);
+        // the head gets 3 nodes at 100, the next job all 4 once the head ends
+        queue.offer(job(50, 3, 1));
+        queue.offer(job(30, 4, 2));
+        // fits next to the head, but would hold up the second job
+        queue.offer(job(200, 1, 3));
+        nodes.run(80);
+        scheduler.schedule(queue, 80, nodes);
+        return nodes.started.size();
+    }
+
+    @Test
+    public void testConservativeDoesNotDelayAnyReservation() {
+        assertEquals(2, startedAt80(BackfillingScheduler.Mode.EASY));
+        assertEquals(1, startedAt80(BackfillingScheduler.Mode.CONSERVATIVE));
+    }
+
+    @Test
+    public void testConservativeStartsJobsAtTheirReservations() {
+        BackfillingScheduler scheduler = new BackfillingScheduler(BackfillingScheduler.Mode.CONSERVATIVE);
+        Nodes nodes = new Nodes(4);
+        ArrivalJobQueue<BatchJob> queue = blockedHead(scheduler, nodes);
+        // fits next to the running job, but would hold up the head
+        BatchJob later = job(200, 1, 5);
+        queue.offer(later);
+        nodes.run(1);
+        assertTrue(scheduler.schedule(queue, 1, nodes));
+        // the head waits for the running job, the job that arrives at 5 for
+        // the head
+        assertEquals(5, scheduler.nextEventTime(1));
+        nodes.run(4);
+        assertTrue(scheduler.schedule(queue, 5, nodes));
+        assertEquals(100, scheduler.nextEventTime(5));
+        assertEquals(1, nodes.started.size());
+        nodes.run(95);
+        nodes.finish(nodes.started.get(0));
+        assertTrue(scheduler.schedule(queue, 100, nodes));
+        assertEquals(150, scheduler.nextEventTime(100));
+        nodes.run(50);
+        nodes.finish(nodes.started.get(1));
+        assertFalse(scheduler.schedule(queue, 150, nodes));
+        assertEquals(later, nodes.started.get(2));
+    }
+
+    @Test
+    public void testConservativePlansAgainWhenAJobEndsEarly() {
+        BackfillingScheduler scheduler = new BackfillingScheduler(BackfillingScheduler.Mode.CONSERVATIVE);
+        Nodes nodes = new Nodes(4);
+        ArrivalJobQueue<BatchJob> queue = blockedHead(scheduler, nodes);
+        nodes.run(1);
+        assertTrue(scheduler.schedule(queue, 1, nodes));
+        assertEquals(100, scheduler.nextEventTime(1));
+        nodes.run(39);
+        nodes.finish(nodes.started.get(0));
+        assertFalse(scheduler.schedule(queue, 40, nodes));
+        assertEquals(2, nodes.started.size());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testReservationsFollowTheWorkLeft() {
+        BackfillingScheduler scheduler = new BackfillingScheduler(BackfillingScheduler.Mode.EASY);
+        Nodes nodes = new Nodes(4);
+        ArrivalJobQueue<BatchJob> queue = blockedHead(scheduler, nodes);
+        BatchJob running = nodes.started.get(0);
+        // behind its requested time: half the work in the first 10 ticks
+        Arrays.fill(running.getRemain(), 95);
+        assertEquals(105, scheduler.getProfile().shadowTime(1, 4, 10));
+        // a job of 93 ticks ends before that, one of 96 does not
+        queue.offer(job(96, 1, 2));
+        queue.offer(job(93, 1, 3));
+        assertTrue(scheduler.schedule(queue, 10, nodes));
+        assertEquals(93, nodes.started.get(1).getReqTime(), 0);
+        // ahead of it, then still running when it was due
+        Arrays.fill(running.getRemain(), 40);
+        assertEquals(60, scheduler.getProfile().shadowTime(3, 4, 20));
+        assertEquals(150, scheduler.getProfile().shadowTime(3, 4, 110));
+    }
+
+    @Test
+    public void testSchedulersByName() {
+        assertTrue(Schedulers.forName("FCFS", null) instanceof FIFOScheduler);
+        assertTrue(Schedulers.forName(" LRF ", null) instanceof LeastRemainFirstScheduler);
+        BackfillingScheduler scheduler = (BackfillingScheduler) Schedulers.forName("Conservative-Backfilling", null);
+        assertEquals(BackfillingScheduler.Mode.CONSERVATIVE, scheduler.getMode());
+        assertEquals(BackfillingScheduler.Mode.EASY, ((BackfillingScheduler) Schedulers.forName("easy", null)).getMode());
+    }
+}
@@ -0,0 +1,107 @@
+package simulator.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import simulator.BinaryTraceReader;
+import simulator.TraceConverter;
+import simulator.TraceReader;
+import simulator.TraceSource;
+
+public class BinaryTraceReaderTest {
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private File textLog(String text) throws IOException {
+        File file = File.createTempFile("trace", ".txt");
+        file.deleteOnExit();
+        BinaryTraceReader.binarySibling(file).deleteOnExit();
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8);
+        writer.write(text);
+        writer.close();
+        return file;
+    }
+
+    @Test
+    public void testConvertedLogReadsLikeTheText() throws IOException {
+        File text = textLog("1\t1\t41.07\t2\t1\n2 0.3 51.19 1 7\n\n3\t12.5\t0.5\t4\t0\n");
+        assertEquals(3, TraceConverter.convert(text, BinaryTraceReader.binarySibling(text),
+                BinaryTraceReader.Kind.BATCH_JOBS));
+        TraceSource binary = BinaryTraceReader.open(text, BinaryTraceReader.Kind.BATCH_JOBS);
+        assertTrue(binary instanceof BinaryTraceReader);
+        TraceReader reader = new TraceReader(new FileInputStream(text));
+        while (reader.nextRecord()) {
+            if (reader.fieldCount() < 5) {
+                continue;
+            }
+            assertTrue(binary.nextRecord());
+            assertEquals(5, binary.fieldCount());
+            for (int field = 0; field < 3; field++) {
+                assertEquals(reader.getDouble(field), binary.getDouble(field), 0);
+            }
+            assertEquals(reader.getInt(3), binary.getInt(3));
+            assertEquals(reader.getInt(4), binary.getInt(4));
+        }
+        assertFalse(binary.nextRecord());
+        reader.close();
+        binary.close();
+    }
+
+    @Test
+    public void testTextIsReadWithoutBinarySibling() throws IOException {
+        File text = textLog("5 2.5\n");
+        TraceSource trace = BinaryTraceReader.open(text, BinaryTraceReader.Kind.JOBS);
+        assertTrue(trace instanceof TraceReader);
+        assertTrue(trace.nextRecord());
+        assertEquals(5, trace.getInt(0));
+        trace.close();
+    }
+
+    @Test
+    public void testOlderBinarySiblingIsLeftOut() throws IOException {
+        File text = textLog("5 2.5\n");
+        File binary = BinaryTraceReader.binarySibling(text);
+        TraceConverter.convert(text, binary, BinaryTraceReader.Kind.JOBS);
+        assertTrue(binary.setLastModified(text.lastModified() - 60000));
+        TraceSource trace = BinaryTraceReader.open(text, BinaryTraceReader.Kind.JOBS);
+        assertTrue(trace instanceof TraceReader);
+        trace.close();
+    }
+
+    @Test
+    public void testHeaderHoldsTheKindCode() throws IOException {
+        File text = textLog("5 2.5\n");
+        File binary = BinaryTraceReader.binarySibling(text);
+        TraceConverter.convert(text, binary, BinaryTraceReader.Kind.BATCH_JOBS);
+        DataInputStream in = new DataInputStream(new FileInputStream(binary));
+        in.skipBytes(8);
+        // little-endian 1
+        assertEquals(1 << 24, in.readInt());
+        in.close();
+        assertEquals(0, BinaryTraceReader.Kind.JOBS.getCode());
+        assertEquals(1, BinaryTraceReader.Kind.BATCH_JOBS.getCode());
+    }
+
+    @Test
+    public void testKindIsChecked() throws IOException {
+        File text = textLog("5 2.5\n6 1\n");
+        TraceConverter.convert(text, BinaryTraceReader.binarySibling(text), BinaryTraceReader.Kind.JOBS);
+        expectedException.expect(IOException.class);
+        BinaryTraceReader.open(text, BinaryTraceReader.Kind.BATCH_JOBS);
+    }
+}
@@ -4,19 +4,31 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Random;
 
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.ExpectedException;
 
 import simulator.Environment;
-import simulator.ResponseTime;
 import simulator.jobs.BatchJob;
 import simulator.jobs.EnterpriseJob;
 import simulator.jobs.InteractiveJob;
+import simulator.physical.BatchJobSlots;
 import simulator.physical.BladeServer;
+import simulator.physical.IndexedServerList;
+import simulator.physical.ReadyStateIndex;
+import simulator.physical.ServerStateTable;
 
 public class BladeServerTest {
 
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
     @Test
     public void testBladeServerCreation() {
 
@@ -49,10 +61,6 @@ public class BladeServerTest {
         assertEquals(0.0, bladeServer.getQueueLength(), 1.0E8);
         assertEquals(0.0, bladeServer.getRackId(), 1.0E8);
         assertEquals(0.0, bladeServer.getReady(), 1.0E8);
-        List<ResponseTime> responseTime = bladeServer.getResponseList();
-        assertTrue(responseTime.isEmpty());
-        List<ResponseTime> getResponseListWeb = bladeServer.getResponseListWeb();
-        assertTrue(getResponseListWeb.isEmpty());
         assertEquals(0.0, bladeServer.getResponseTime(), 1.0E8);
         assertEquals(0.0, bladeServer.getResTimeEpoch(), 1.0E8);
         assertEquals(0.0, bladeServer.getServerID(), 1.0E8);
@@ -67,4 +75,344 @@ public class BladeServerTest {
 
     }
 
+    @Test
+    public void testPowerFollowsStateChanges() {
+        BladeServer bladeServer = new BladeServer(0, new Environment());
+        bladeServer.setFrequencyLevel(new double[] { 1, 1.04, 1.4 });
+        bladeServer.setPowerBusy(new double[] { 300, 336, 448 });
+        bladeServer.setPowerIdle(new double[] { 100, 100, 128 });
+        bladeServer.setIdleConsumption(5);
+        assertEquals(5.0, bladeServer.getPower(), 0.0);
+        bladeServer.setReady(1);
+        assertEquals(128.0, bladeServer.getPower(), 0.0);
+        bladeServer.setCurrentCPU(50);
+        assertEquals(288.0, bladeServer.getPower(), 0.0);
+        bladeServer.setMips(1);
+        assertEquals(0, bladeServer.getCurrentFreqLevel());
+        assertEquals(200.0, bladeServer.getPower(), 0.0);
+        bladeServer.setReady(-1);
+        assertEquals(5.0, bladeServer.getPower(), 0.0);
+    }
+
+    @Test
+    public void testServersShareStateTable() {
+        Environment environment = new Environment();
+        ServerStateTable table = new ServerStateTable(1);
+        BladeServer first = new BladeServer(table, 3, environment);
+        BladeServer second = new BladeServer(table, 4, environment);
+        assertEquals(2, table.size());
+        assertEquals(0, first.getStateRow());
+        assertEquals(1, second.getStateRow());
+        assertEquals(-3, table.getReady(1));
+        assertEquals(4, table.getChassisID(1));
+        second.setReady(1);
+        second.setCurrentCPU(75);
+        second.setRackId(2);
+        assertEquals(1, table.getReady(1));
+        assertEquals(75.0, table.getCurrentCPU(1), 0.0);
+        assertEquals(2, table.getRackID(1));
+        assertEquals(-3, first.getReady());
+        assertEquals(1.4, first.getMips(), 0.0);
+    }
+
+    @Test
+    public void testReadyStateIndexFollowsServers() {
+        Environment environment = new Environment();
+        ReadyStateIndex readyIndex = new ReadyStateIndex();
+        int[] ranks = { 2, 0, 2, 1 };
+        BladeServer[] servers = new BladeServer[ranks.length];
+        for (int i = 0; i < ranks.length; i++) {
+            servers[i] = new BladeServer(i, environment);
+            readyIndex.add(servers[i], ranks[i]);
+        }
+        assertEquals(4, readyIndex.count(-3));
+        assertEquals(-2, readyIndex.first(1));
+        for (BladeServer server : servers) {
+            server.setReady(1);
+        }
+        assertEquals(0, readyIndex.count(-3));
+        assertEquals(1, readyIndex.first(1));
+        int[] positions = new int[3];
+        assertEquals(3, readyIndex.fillFromLast(1, positions));
+        assertEquals(0, positions[0]);
+        assertEquals(2, positions[1]);
+        assertEquals(3, positions[2]);
+        assertEquals(3, readyIndex.fillFromFirst(1, positions));
+        assertEquals(1, positions[0]);
+        assertEquals(3, positions[1]);
+        assertEquals(0, positions[2]);
+        servers[1].setReady(0);
+        assertEquals(3, readyIndex.first(1));
+        assertEquals(1, readyIndex.first(0));
+    }
+
+    @Test
+    public void testReadyStateIndexMatchesAScanOfTheNodes() {
+        Environment environment = new Environment();
+        ReadyStateIndex readyIndex = new ReadyStateIndex();
+        Random random = new Random(16);
+        List<BladeServer> servers = new ArrayList<BladeServer>();
+        final List<Integer> ranks = new ArrayList<Integer>();
+        for (int i = 0; i < 200; i++) {
+            BladeServer server = new BladeServer(i, environment);
+            server.setReady(random.nextInt(5) - 3);
+            servers.add(server);
+            ranks.add(random.nextInt(20));
+            readyIndex.add(server, ranks.get(i));
+        }
+        for (int step = 0; step < 500; step++) {
+            servers.get(random.nextInt(servers.size())).setReady(random.nextInt(5) - 3);
+            List<Integer> ready = new ArrayList<Integer>();
+            for (int i = 0; i < servers.size(); i++) {
+                if (servers.get(i).getReady() == 1) {
+                    ready.add(i);
+                }
+            }
+            assertEquals(ready.size(), readyIndex.count(1));
+            // no server runs a job, so the ready ones are free
+            assertEquals(ready.size(), readyIndex.countFree());
+            assertEquals(ready.isEmpty() ? -2 : ready.get(0).intValue(), readyIndex.firstInListOrder(1));
+            // highest rank first, list order inside a rank
+            Collections.sort(ready, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer a, Integer b) {
+                    int byRank = ranks.get(b) - ranks.get(a);
+                    return byRank != 0 ? byRank : a - b;
+                }
+            });
+            int[] positions = new int[Math.min(7, ready.size())];
+            readyIndex.fillFromLast(1, positions);
+            for (int k = 0; k < positions.length; k++) {
+                assertEquals(ready.get(k).intValue(), positions[k]);
+            }
+        }
+    }
+
+    @Test
+    public void testReadyStateIndexFollowsTheFreeNodes() {
+        Environment environment = new Environment();
+        ReadyStateIndex readyIndex = new ReadyStateIndex();
+        BladeServer[] servers = new BladeServer[3];
+        for (int i = 0; i < servers.length; i++) {
+            servers[i] = new BladeServer(i, environment);
+            servers[i].setServerID(i);
+            servers[i].setReady(1);
+            readyIndex.add(servers[i], i);
+        }
+        assertEquals(3, readyIndex.countFree());
+        // the job has a second node that never finishes, so it stays around
+        BatchJob job = new BatchJob(environment, null);
+        job.setNumOfNode(2);
+        job.setListOfServer(new int[] { 1, 9 });
+        job.setRemain(new double[] { 0.5, 1 });
+        job.setUtilization(0.5);
+        servers[1].feedWork(job, 0);
+        // still ready, but its MIPS are shared with the job
+        assertEquals(1, servers[1].getReady());
+        assertEquals(3, readyIndex.count(1));
+        assertEquals(2, readyIndex.countFree());
+        int[] positions = new int[2];
+        assertEquals(2, readyIndex.fillFreeFromLast(positions));
+        assertEquals(2, positions[0]);
+        assertEquals(0, positions[1]);
+        servers[2].setReady(-1);
+        assertEquals(1, readyIndex.countFree());
+        servers[1].run(job);
+        assertTrue(servers[1].getActiveBatchList().isEmpty());
+        assertEquals(2, readyIndex.countFree());
+        assertEquals(2, readyIndex.fillFreeFromFirst(positions));
+        assertEquals(0, positions[0]);
+        assertEquals(1, positions[1]);
+    }
+
+    @Test
+    public void testReadyStateIndexRejectsNegativeRanks() {
+        ReadyStateIndex readyIndex = new ReadyStateIndex();
+        expectedException.expect(IllegalArgumentException.class);
+        readyIndex.add(new BladeServer(0, new Environment()), -1);
+    }
+
+    @Test
+    public void testIndexedServerListMatchesAScanOfTheNodes() {
+        Environment environment = new Environment();
+        Random random = new Random(24);
+        IndexedServerList bundle = new IndexedServerList();
+        ReadyStateIndex system = new ReadyStateIndex();
+        List<BladeServer> servers = new ArrayList<BladeServer>();
+        for (int step = 0; step < 1000; step++) {
+            int action = random.nextInt(4);
+            if (action == 0 || bundle.size() < 3) {
+                BladeServer server = new BladeServer(step, environment);
+                server.setReady(random.nextInt(5) - 3);
+                system.add(server, 0);
+                servers.add(server);
+                bundle.add(server);
+            } else if (action == 1) {
+                bundle.remove(random.nextInt(bundle.size()));
+            } else {
+                bundle.get(random.nextInt(bundle.size())).setReady(random.nextInt(5) - 3);
+            }
+            for (int ready = -3; ready <= 1; ready++) {
+                int count = 0;
+                int first = -2;
+                for (int i = 0; i < bundle.size(); i++) {
+                    if (bundle.get(i).getReady() == ready) {
+                        first = count == 0 ? i : first;
+                        count++;
+                    }
+                }
+                assertEquals(count, bundle.getReadyIndex().count(ready));
+                assertEquals(first, bundle.getReadyIndex().first(ready));
+            }
+        }
+        // servers that left the bundle are still followed by the system
+        for (int ready = -3; ready <= 1; ready++) {
+            int count = 0;
+            for (BladeServer server : servers) {
+                count += server.getReady() == ready ? 1 : 0;
+            }
+            assertEquals(count, system.count(ready));
+        }
+    }
+
+    @Test
+    public void testStatesFollowTheReadyCodes() {
+        Environment environment = new Environment();
+        BladeServer bladeServer = new BladeServer(0, environment);
+        assertEquals(BladeServer.State.UNASSIGNED, bladeServer.getState());
+        bladeServer.setState(BladeServer.State.IDLE);
+        assertEquals(-1, bladeServer.getReady());
+        assertEquals(BladeServer.State.READY, BladeServer.State.of(1));
+        expectedException.expect(IllegalArgumentException.class);
+        bladeServer.setReady(2);
+    }
+
+    @Test
+    public void testMipsAreSharedMaxMinFair() {
+        Environment environment = new Environment();
+        BladeServer bladeServer = new BladeServer(0, environment);
+        bladeServer.setServerID(3);
+        double[] utilizations = { 1.0, 0.2, 0.5 };
+        BatchJob[] jobs = new BatchJob[utilizations.length];
+        for (int i = 0; i < jobs.length; i++) {
+            jobs[i] = new BatchJob(environment, null);
+            jobs[i].setNumOfNode(1);
+            jobs[i].setListOfServer(new int[] { 3 });
+            jobs[i].setRemain(new double[] { 10 });
+            jobs[i].setUtilization(utilizations[i]);
+            bladeServer.feedWork(jobs[i]);
+        }
+        bladeServer.run(jobs[0]);
+        // 0.2 and 0.5 fit under the water level, the last job gets the 0.7 left
+        assertEquals(10 - 0.7, jobs[0].getRemain()[0], 1.0E-12);
+        assertEquals(10 - 1.4 / 3, jobs[1].getRemain()[0], 1.0E-12);
+        assertEquals(10 - 1.4 / 3, jobs[2].getRemain()[0], 1.0E-12);
+        assertEquals(100.0, bladeServer.getCurrentCPU(), 1.0E-9);
+        assertEquals(3, bladeServer.getActiveBatchList().size());
+    }
+
+    @Test
+    public void testAJobLeavingMakesTheNextJobMissTheTick() {
+        BladeServer bladeServer = serverWithJobs(new double[] { 1.0, 1.0 }, new double[] { 0.1, 10 });
+        BatchJob leaving = bladeServer.getActiveBatchList().get(0);
+        BatchJob next = bladeServer.getActiveBatchList().get(1);
+        bladeServer.run(leaving);
+        assertEquals(1, bladeServer.getActiveBatchList().size());
+        assertEquals(1, bladeServer.getBlockedBatchList().size());
+        // as in the original loop, which stepped over the job after the one
+        // it removed; FIXME: expect the job to progress once shareMips drops
+        // the missed job
+        assertEquals(10.0, next.getRemain()[0], 0.0);
+        assertEquals(50.0, bladeServer.getCurrentCPU(), 1.0E-9);
+    }
+
+    @Test
+    public void testQuietTicksAreTheTicksBeforeAJobEnds() {
+        BladeServer skipping = serverWithJobs(new double[] { 1.0, 0.2, 0.5 }, new double[] { 3001, 57.3, 1000 });
+        BladeServer running = serverWithJobs(new double[] { 1.0, 0.2, 0.5 }, new double[] { 3001, 57.3, 1000 });
+        int quiet = skipping.quietTicks(Integer.MAX_VALUE);
+        assertTrue(quiet > 0);
+        skipping.skipQuietTicks(quiet);
+        for (int t = 0; t < quiet; t++) {
+            running.run(new BatchJob(new Environment(), null));
+        }
+        assertEquals(3, running.getActiveBatchList().size());
+        for (int i = 0; i < 3; i++) {
+            BatchJob job = skipping.getActiveBatchList().get(i);
+            assertEquals(running.getActiveBatchList().get(i).getRemain()[0], job.getRemain()[0], 0.0);
+        }
+        assertEquals(0, skipping.quietTicks(Integer.MAX_VALUE));
+        running.run(new BatchJob(new Environment(), null));
+        assertEquals(2, running.getActiveBatchList().size());
+    }
+
+    // jobs with a second node that never finishes, so they stay on the server
+    private BladeServer serverWithJobs(double[] utilizations, double[] remains) {
+        Environment environment = new Environment();
+        BladeServer bladeServer = new BladeServer(0, environment);
+        bladeServer.setServerID(3);
+        for (int i = 0; i < utilizations.length; i++) {
+            BatchJob job = new BatchJob(environment, null);
+            job.setNumOfNode(2);
+            job.setListOfServer(new int[] { 3, 4 });
+            job.setRemain(new double[] { remains[i], 1 });
+            job.setUtilization(utilizations[i]);
+            bladeServer.feedWork(job, 0);
+        }
+        return bladeServer;
+    }
+
+    @Test
+    public void testJobSlotsSwapOnRemove() {
+        BatchJobSlots slots = new BatchJobSlots();
+        BatchJob[] jobs = new BatchJob[5];
+        for (int i = 0; i < jobs.length; i++) {
+            jobs[i] = new BatchJob(null, null);
+            jobs[i].setNumOfNode(2);
+            slots.add(jobs[i], i % 2);
+        }
+        assertEquals(5, slots.size());
+        assertTrue(slots.remove(jobs[1], 1));
+        // the last job took the freed slot
+        assertEquals(4, slots.size());
+        assertEquals(jobs[4], slots.get(1));
+        assertEquals(0, slots.getNodeIndex(1));
+        assertEquals(1, jobs[4].getSlot(0));
+        assertFalse(slots.remove(jobs[1], 1));
+        assertFalse(slots.remove(jobs[2], 1));
+        assertTrue(slots.remove(jobs[4], 0));
+        assertTrue(slots.remove(jobs[3], 1));
+        assertEquals(2, slots.size());
+        assertEquals(jobs[0], slots.get(0));
+        assertEquals(jobs[2], slots.get(1));
+    }
+
+    @Test
+    public void testJobSlotsKeepTheirOrdersUntilTheJobsChange() {
+        BatchJobSlots slots = new BatchJobSlots();
+        double[] utilizations = { 0.5, 0.2, 1.0, 0.2 };
+        BatchJob[] jobs = new BatchJob[utilizations.length];
+        for (int i = 0; i < jobs.length; i++) {
+            jobs[i] = new BatchJob(null, null);
+            jobs[i].setNumOfNode(1);
+            jobs[i].setUtilization(utilizations[i]);
+            slots.add(jobs[i], 0);
+        }
+        int[] byUtilization = slots.placesByUtilization();
+        assertEquals(1, byUtilization[0]);
+        assertEquals(3, byUtilization[1]);
+        assertEquals(0, byUtilization[2]);
+        assertEquals(2, byUtilization[3]);
+        assertTrue(byUtilization == slots.placesByUtilization());
+        assertTrue(slots.remove(jobs[0], 0));
+        // the last job took slot 0, but is still the last one added
+        int[] added = slots.slotsInAddedOrder();
+        assertEquals(1, added[0]);
+        assertEquals(2, added[1]);
+        assertEquals(0, added[2]);
+        byUtilization = slots.placesByUtilization();
+        assertEquals(0, byUtilization[0]);
+        assertEquals(2, byUtilization[1]);
+        assertEquals(1, byUtilization[2]);
+    }
 }
@@ -1,18 +1,29 @@
 package simulator.tests;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.junit.Test;
 
 import simulator.Environment;
+import simulator.physical.BladeServer;
 import simulator.physical.Chassis;
 import simulator.physical.DataCenter;
 import simulator.physical.DataCenterBuilder;
 import simulator.physical.DataCenterPOD;
+import simulator.physical.IndexedServerList;
+import simulator.physical.PowerAggregationTree;
+import simulator.physical.RackIndex;
+import simulator.physical.ServerRegistry;
+import simulator.ra.FirstFit;
+import simulator.ra.MHR;
+import simulator.ra.ResourceAllocation;
 import simulator.system.Systems;
 
 public class DataCenterTest {
@@ -35,4 +46,172 @@ public class DataCenterTest {
         
     }
 
+    @Test
+    public void testPowerTreeFollowsServerChanges() {
+        Environment environment = new Environment();
+        DataCenterBuilder dataCenterBuilder = new DataCenterBuilder("configs/DC.xml", environment);
+        DataCenter dataCenter = new DataCenter(dataCenterBuilder.getDataCenterPOD(), environment,
+                new Systems(environment));
+        PowerAggregationTree powerTree = dataCenter.getPowerTree();
+        // every server starts unassigned, drawing its standby power
+        assertEquals(50 * 5.0, powerTree.getTotalPower(), 1.0E-9);
+        BladeServer bladeServer = dataCenter.getServer(7);
+        bladeServer.setReady(1);
+        bladeServer.setCurrentCPU(50);
+        assertEquals(288.0, powerTree.getChassisPower(7), 1.0E-9);
+        assertEquals(4 * 5.0 + 288.0, powerTree.getRackPower(bladeServer.getRackId()), 1.0E-9);
+        assertEquals(49 * 5.0 + 288.0, powerTree.getTotalPower(), 1.0E-9);
+        bladeServer.setReady(-1);
+        assertEquals(50 * 5.0, powerTree.getTotalPower(), 1.0E-9);
+    }
+
+    @Test
+    public void testChassisRankingFromRecirculation() {
+        Environment environment = new Environment();
+        DataCenterBuilder dataCenterBuilder = new DataCenterBuilder("configs/DC.xml", environment);
+        DataCenter dataCenter = new DataCenter(dataCenterBuilder.getDataCenterPOD(), environment,
+                new Systems(environment));
+        // the order MHR used to have written down for this layout
+        int[] expected = { 15, 31, 16, 11, 36, 10, 30, 6, 20, 21, 35, 32, 17, 26, 25, 7, 27, 12, 42, 37, 41, 5, 2,
+                1, 0, 22, 40, 47, 46, 13, 45, 29, 23, 8, 28, 43, 48, 9, 38, 33, 18, 3, 34, 44, 24, 14, 49, 19, 39, 4 };
+        assertArrayEquals(expected, dataCenter.getChassisRanking());
+        assertEquals(0, dataCenter.getChassisRank(15));
+        assertEquals(49, dataCenter.getChassisRank(4));
+    }
+
+    @Test
+    public void testServerRegistryLooksUpServersById() {
+        Environment environment = new Environment();
+        DataCenterBuilder dataCenterBuilder = new DataCenterBuilder("configs/DC.xml", environment);
+        DataCenter dataCenter = new DataCenter(dataCenterBuilder.getDataCenterPOD(), environment,
+                new Systems(environment));
+        ServerRegistry serverRegistry = dataCenter.getServerRegistry();
+        assertEquals(50, serverRegistry.size());
+        for (int id = 0; id < serverRegistry.size(); id++) {
+            BladeServer bladeServer = dataCenter.getServer(id);
+            assertEquals(id, bladeServer.getServerID());
+            assertSame(bladeServer, dataCenter.getServer(serverRegistry.getChassisIndex(id), serverRegistry.getSlot(id)));
+            assertEquals(bladeServer.getRackId(), serverRegistry.getRackID(id));
+        }
+    }
+
+    @Test
+    public void testServerRegistryWithChassisOfDifferentSizes() {
+        Environment environment = new Environment();
+        ServerRegistry serverRegistry = new ServerRegistry();
+        int[] chassisSizes = { 3, 1, 4 };
+        int id = 0;
+        for (int chassis = 0; chassis < chassisSizes.length; chassis++) {
+            for (int slot = 0; slot < chassisSizes[chassis]; slot++) {
+                assertEquals(id++, serverRegistry.register(new BladeServer(chassis, environment), chassis, slot));
+            }
+        }
+        assertEquals(8, serverRegistry.size());
+        assertEquals(1, serverRegistry.getChassisIndex(3));
+        assertEquals(0, serverRegistry.getSlot(3));
+        assertEquals(2, serverRegistry.getChassisIndex(7));
+        assertEquals(3, serverRegistry.getSlot(7));
+        assertFalse(serverRegistry.contains(8));
+    }
+
+    @Test
+    public void testReadyServersComeInNextServerOrder() {
+        Environment environment = new Environment();
+        DataCenterBuilder dataCenterBuilder = new DataCenterBuilder("configs/DC.xml", environment);
+        DataCenter dataCenter = new DataCenter(dataCenterBuilder.getDataCenterPOD(), environment,
+                new Systems(environment));
+        final ResourceAllocation mhr = new MHR(environment, dataCenter);
+        IndexedServerList nodes = new IndexedServerList(new IndexedServerList.Ranking() {
+            @Override
+            public int rankOf(BladeServer server) {
+                return mhr.getNodeRank(server);
+            }
+        });
+        for (int id = 0; id < 50; id += 3) {
+            BladeServer bladeServer = dataCenter.getServer(id);
+            bladeServer.setReady(id % 2 == 0 ? 1 : -1);
+            nodes.add(bladeServer);
+        }
+        int[] order = new int[nodes.size()];
+        int ready = nodes.getReadyIndex().fillFromFirst(1, order);
+        assertEquals(9, ready);
+        for (int k = 0; k < ready; k++) {
+            assertEquals(mhr.nextServer(nodes), order[k]);
+            nodes.get(order[k]).setReady(0);
+        }
+        assertEquals(-2, mhr.nextServer(nodes));
+    }
+
+    @Test
+    public void testRackIndexMatchesTheChassisSet() {
+        Environment environment = new Environment();
+        DataCenterBuilder dataCenterBuilder = new DataCenterBuilder("configs/DC.xml", environment);
+        DataCenter dataCenter = new DataCenter(dataCenterBuilder.getDataCenterPOD(), environment,
+                new Systems(environment));
+        RackIndex rackIndex = dataCenter.getRackIndex();
+        int servers = 0;
+        for (int rackID = 0; rackIndex.contains(rackID); rackID++) {
+            List<Integer> chassis = new ArrayList<Integer>();
+            List<Integer> serverIDs = new ArrayList<Integer>();
+            for (int i = 0; i < dataCenter.getChassisSet().size(); i++) {
+                if (dataCenter.getChassisSet().get(i).getRackID() == rackID) {
+                    chassis.add(i);
+                    for (BladeServer bladeServer : dataCenter.getChassisSet().get(i).getServers()) {
+                        serverIDs.add(bladeServer.getServerID());
+                    }
+                }
+            }
+            assertEquals(chassis, rackIndex.getChassis(rackID));
+            assertEquals(serverIDs, rackIndex.getServers(rackID));
+            assertEquals(serverIDs.size(), rackIndex.countUnassigned(rackID));
+            int best = chassis.get(0);
+            for (int i : chassis) {
+                if (dataCenter.getChassisRank(i) > dataCenter.getChassisRank(best)) {
+                    best = i;
+                }
+            }
+            assertEquals(dataCenter.getChassisSet().get(best).getServers().get(0).getServerID(),
+                    rackIndex.highestRankedUnassigned(rackID));
+            servers += serverIDs.size();
+        }
+        assertEquals(50, servers);
+        assertEquals(-1, rackIndex.firstUnassigned(-5));
+        assertEquals(-1, rackIndex.highestRankedUnassigned(-5));
+    }
+
+    @Test
+    public void testFreeListsPickWhatTheChassisScanPicks() {
+        Environment environment = new Environment();
+        DataCenterBuilder dataCenterBuilder = new DataCenterBuilder("configs/DC.xml", environment);
+        DataCenter dataCenter = new DataCenter(dataCenterBuilder.getDataCenterPOD(), environment,
+                new Systems(environment));
+        List<Integer> rackIDs = new ArrayList<Integer>();
+        rackIDs.add(2);
+        rackIDs.add(0);
+        List<Integer> chassis = new ArrayList<Integer>();
+        for (int rackID : rackIDs) {
+            chassis.addAll(dataCenter.getRackIndex().getChassis(rackID));
+        }
+        ResourceAllocation[] allocators = { new MHR(environment, dataCenter), new FirstFit(environment, dataCenter) };
+        for (ResourceAllocation allocator : allocators) {
+            int picked = 0;
+            while (true) {
+                int[] expected = allocator.nextServerSys(chassis);
+                assertArrayEquals(expected, allocator.nextServerInRacks(rackIDs));
+                if (expected[0] == -2) {
+                    break;
+                }
+                dataCenter.getServer(expected[0], expected[1]).setReady(-2);
+                picked++;
+            }
+            int servers = 0;
+            for (int rackID : rackIDs) {
+                for (int serverID : dataCenter.getRackIndex().getServers(rackID)) {
+                    dataCenter.getServer(serverID).setReady(-3);
+                    servers++;
+                }
+            }
+            assertEquals(servers, picked);
+        }
+    }
 }
@@ -0,0 +1,141 @@
+package simulator.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import simulator.jobs.BatchJob;
+import simulator.jobs.Job;
+import simulator.schedulers.AbstractScheduler;
+import simulator.schedulers.EarliestDeadlineFirstScheduler;
+import simulator.schedulers.FIFOScheduler;
+import simulator.schedulers.JobQueue;
+import simulator.schedulers.LeastRemainFirstScheduler;
+import simulator.schedulers.ListJobQueue;
+import simulator.schedulers.Scheduler;
+
+public class HeapJobQueueTest {
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private BatchJob job(double reqTime, double startTime, double deadline) {
+        BatchJob job = new BatchJob(null, null);
+        job.setReqTime(reqTime);
+        job.setStartTime(startTime);
+        job.setDeadline(deadline);
+        return job;
+    }
+
+    @Test
+    public void testEmptyQueue() {
+        JobQueue<BatchJob> queue = new LeastRemainFirstScheduler().newQueue();
+        assertTrue(queue.isEmpty());
+        assertNull(queue.peek());
+        assertNull(queue.poll());
+        assertFalse(queue.remove(job(1, 0, 0)));
+    }
+
+    @Test
+    public void testFIFOQueueKeepsArrivalOrder() {
+        JobQueue<Job> queue = new FIFOScheduler().newQueue();
+        List<Job> jobs = new ArrayList<Job>();
+        for (int i = 0; i < 20; i++) {
+            BatchJob job = job(20 - i, i, 0);
+            jobs.add(job);
+            queue.offer(job);
+        }
+        assertTrue(queue.remove(jobs.remove(7)));
+        for (Job job : jobs) {
+            assertSame(job, queue.poll());
+        }
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testEarliestDeadlineFirst() {
+        JobQueue<BatchJob> queue = new EarliestDeadlineFirstScheduler().newQueue();
+        BatchJob late = job(1, 0, 30);
+        BatchJob early = job(1, 10, 5);
+        BatchJob tied = job(1, 5, 10);
+        queue.offer(late);
+        queue.offer(early);
+        queue.offer(tied);
+        assertSame(early, queue.poll());
+        assertSame(tied, queue.poll());
+        assertSame(late, queue.poll());
+    }
+
+    @Test
+    public void testSchedulersWithoutAQueueAskNextJob() {
+        Scheduler newestFirst = new AbstractScheduler() {
+            @Override
+            public Job nextJob(List<? extends Job> queue) {
+                return queue.get(queue.size() - 1);
+            }
+        };
+        JobQueue<BatchJob> queue = newestFirst.newQueue();
+        assertTrue(queue instanceof ListJobQueue);
+        BatchJob first = job(1, 0, 0);
+        BatchJob second = job(1, 1, 0);
+        queue.offer(first);
+        queue.offer(second);
+        assertSame(second, queue.poll());
+        assertSame(first, queue.poll());
+    }
+
+    @Test
+    public void testAJobWaitsInOneHeapAtATime() {
+        JobQueue<BatchJob> queue = new LeastRemainFirstScheduler().newQueue();
+        JobQueue<BatchJob> other = new LeastRemainFirstScheduler().newQueue();
+        BatchJob job = job(1, 0, 0);
+        queue.offer(job);
+        queue.offer(job);
+        assertEquals(1, queue.size());
+        assertFalse(other.remove(job));
+        assertSame(job, queue.poll());
+        other.offer(job);
+        assertSame(job, other.peek());
+        expectedException.expect(IllegalArgumentException.class);
+        queue.offer(job);
+    }
+
+    @Test
+    public void testHeapPicksTheSameJobsAsTheListScheduler() {
+        Scheduler scheduler = new LeastRemainFirstScheduler();
+        JobQueue<BatchJob> heap = scheduler.newQueue();
+        JobQueue<BatchJob> list = new ListJobQueue<BatchJob>(scheduler);
+        List<BatchJob> waiting = new ArrayList<BatchJob>();
+        Random random = new Random(11);
+        for (int step = 0; step < 2000; step++) {
+            int action = random.nextInt(4);
+            if (action < 2 || waiting.isEmpty()) {
+                // few distinct times, so ties have to go to the older job
+                BatchJob job = job(random.nextInt(8), step, 0);
+                waiting.add(job);
+                heap.offer(job);
+                list.offer(job);
+            } else if (action == 2) {
+                BatchJob job = waiting.remove(random.nextInt(waiting.size()));
+                assertTrue(heap.remove(job));
+                assertTrue(list.remove(job));
+            } else {
+                BatchJob job = list.poll();
+                assertSame(job, heap.poll());
+                waiting.remove(job);
+            }
+            assertEquals(list.size(), heap.size());
+            assertSame(list.peek(), heap.peek());
+        }
+    }
+}
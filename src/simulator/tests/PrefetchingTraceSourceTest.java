@@ -0,0 +1,71 @@
+package simulator.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import simulator.PrefetchingTraceSource;
+import simulator.TraceReader;
+import simulator.TraceSource;
+
+public class PrefetchingTraceSourceTest {
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private TraceReader reader(String text) {
+        return new TraceReader(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testRecordsComeOutAsTheSourceGivesThem() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            text.append(i).append('\t').append(i * 0.37).append('\t').append(i % 3 == 0 ? "" : "7 9").append('\n');
+        }
+        TraceReader expected = reader(text.toString());
+        // a ring much smaller than the log, so the producer has to wait
+        TraceSource prefetched = new PrefetchingTraceSource(reader(text.toString()), 5, 8);
+        while (expected.nextRecord()) {
+            assertTrue(prefetched.nextRecord());
+            assertEquals(expected.fieldCount(), prefetched.fieldCount());
+            assertEquals(expected.getInt(0), prefetched.getInt(0));
+            assertEquals(expected.getDouble(1), prefetched.getDouble(1), 0);
+        }
+        assertFalse(prefetched.nextRecord());
+        assertFalse(prefetched.nextRecord());
+        prefetched.close();
+    }
+
+    @Test
+    public void testParseErrorsComeAfterTheRecordsBeforeThem() throws IOException {
+        TraceSource prefetched = new PrefetchingTraceSource(reader("1 2\n3 4\nx 5\n"), 2, 4);
+        assertTrue(prefetched.nextRecord());
+        assertTrue(prefetched.nextRecord());
+        assertEquals(4, prefetched.getInt(1));
+        expectedException.expect(NumberFormatException.class);
+        prefetched.nextRecord();
+    }
+
+    @Test
+    public void testCloseErrorsComeAtTheEndOfTheLog() throws IOException {
+        ByteArrayInputStream in = new ByteArrayInputStream("1 2\n".getBytes(StandardCharsets.UTF_8)) {
+            @Override
+            public void close() throws IOException {
+                throw new IOException("close");
+            }
+        };
+        TraceSource prefetched = new PrefetchingTraceSource(new TraceReader(in), 2, 4);
+        assertTrue(prefetched.nextRecord());
+        expectedException.expect(IOException.class);
+        prefetched.nextRecord();
+    }
+}
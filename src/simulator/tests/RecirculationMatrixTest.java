@@ -0,0 +1,98 @@
+package simulator.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import simulator.physical.DenseRecirculationMatrix;
+import simulator.physical.RecirculationMatrix;
+import simulator.physical.ScalarThermalKernel;
+import simulator.physical.SparseRecirculationMatrix;
+import simulator.physical.ThermalKernel;
+
+public class RecirculationMatrixTest {
+
+    private final double[][] D = { { 0.5, 0, 0.25 }, { 0, 0, 0 }, { 1.5, 2, 0 } };
+    private final double[] power = { 100, 200, 400 };
+
+    @Test
+    public void testDenseMultiply() {
+        RecirculationMatrix matrix = new DenseRecirculationMatrix(D);
+        assertEquals(3, matrix.size());
+        assertEquals(1.5, matrix.get(2, 0), 0.0);
+        double[] temperature = new double[3];
+        matrix.multiply(power, temperature);
+        assertEquals(150.0, temperature[0], 0.0);
+        assertEquals(0.0, temperature[1], 0.0);
+        assertEquals(550.0, temperature[2], 0.0);
+    }
+
+    @Test
+    public void testSparseMatchesDense() {
+        SparseRecirculationMatrix sparse = new SparseRecirculationMatrix(D);
+        assertEquals(4, sparse.getNumberOfNonZeros());
+        RecirculationMatrix dense = new DenseRecirculationMatrix(D);
+        double[] expected = new double[3];
+        double[] temperature = new double[3];
+        dense.multiply(power, expected);
+        sparse.multiply(power, temperature);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(expected[i], temperature[i], 0.0);
+            for (int j = 0; j < 3; j++) {
+                assertEquals(dense.get(i, j), sparse.get(i, j), 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void testCreatePicksRepresentationByDensity() {
+        double[][] diagonal = new double[10][10];
+        for (int i = 0; i < 10; i++) {
+            diagonal[i][i] = 1;
+        }
+        assertTrue(RecirculationMatrix.create(diagonal) instanceof SparseRecirculationMatrix);
+        assertTrue(RecirculationMatrix.create(D) instanceof DenseRecirculationMatrix);
+    }
+
+    @Test
+    public void testAddColumnFollowsPowerChange() {
+        RecirculationMatrix[] matrices = { new DenseRecirculationMatrix(D), new SparseRecirculationMatrix(D) };
+        for (RecirculationMatrix matrix : matrices) {
+            double[] temperature = new double[3];
+            matrix.multiply(power, temperature);
+            matrix.addColumn(0, -50, temperature);
+            double[] expected = new double[3];
+            matrix.multiply(new double[] { 50, 200, 400 }, expected);
+            for (int i = 0; i < 3; i++) {
+                assertEquals(expected[i], temperature[i], 1.0E-9);
+            }
+        }
+    }
+
+    @Test
+    public void testThermalKernelMatchesScalar() {
+        // odd size so the vector kernel also runs its tail loops
+        final int m = 37;
+        double[] values = new double[m * m];
+        double[] power = new double[m];
+        for (int k = 0; k < values.length; k++) {
+            values[k] = (k * 7919 % 101) / 1000.0;
+        }
+        for (int j = 0; j < m; j++) {
+            power[j] = 5 + j * 13 % 290;
+        }
+        ThermalKernel kernel = ThermalKernel.getInstance();
+        ThermalKernel scalar = new ScalarThermalKernel();
+        double[] expected = new double[m];
+        double[] temperature = new double[m];
+        scalar.multiply(values, m, power, expected);
+        kernel.multiply(values, m, power, temperature);
+        for (int i = 0; i < m; i++) {
+            assertEquals(expected[i], temperature[i], 1.0E-9);
+        }
+        assertEquals(scalar.max(expected, m), kernel.max(temperature, m), 1.0E-9);
+        assertEquals(scalar.sum(power, 3, m), kernel.sum(power, 3, m), 1.0E-9);
+        assertEquals(scalar.sum(power, 0, 2), kernel.sum(power, 0, 2), 0.0);
+    }
+}
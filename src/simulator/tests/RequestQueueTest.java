@@ -0,0 +1,109 @@
+package simulator.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import simulator.system.RequestQueue;
+
+public class RequestQueueTest {
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    @Test
+    public void testRecordsLeaveInArrivalOrder() {
+        RequestQueue queue = new RequestQueue();
+        for (int time = 0; time < 100; time++) {
+            queue.add(time, time + 0.5);
+            if (time % 3 == 0) {
+                queue.removeHead();
+            }
+        }
+        assertEquals(66, queue.size());
+        int expected = 34;
+        while (!queue.isEmpty()) {
+            assertEquals(expected, queue.getHeadArrivalTime());
+            assertEquals(expected + 0.5, queue.getHeadRequests(), 0);
+            queue.removeHead();
+            expected++;
+        }
+        assertEquals(100, expected);
+        assertEquals(0, queue.getTotalRequests(), 0);
+    }
+
+    @Test
+    public void testWaitingRequestsCountOnlyArrivedRecords() {
+        RequestQueue queue = new RequestQueue();
+        queue.add(1, 10);
+        queue.add(2, 20);
+        queue.add(5, 40);
+        assertEquals(70, queue.getTotalRequests(), 0);
+        assertEquals(30, queue.waitingRequests(2), 0);
+        queue.setHeadRequests(4);
+        assertEquals(24, queue.waitingRequests(3), 0);
+        queue.removeHead();
+        assertEquals(20, queue.waitingRequests(4), 0);
+        assertEquals(60, queue.waitingRequests(5), 0);
+        assertEquals(60, queue.getTotalRequests(), 0);
+    }
+
+    @Test
+    public void testLastArrivedRequestsIsTheNewestArrivedRecord() {
+        RequestQueue queue = new RequestQueue();
+        assertEquals(0, queue.lastArrivedRequests(0), 0);
+        queue.add(1, 10);
+        queue.add(2, 20);
+        queue.add(5, 40);
+        assertEquals(0, queue.lastArrivedRequests(0), 0);
+        assertEquals(10, queue.lastArrivedRequests(1), 0);
+        assertEquals(20, queue.lastArrivedRequests(4), 0);
+        queue.removeHead();
+        queue.setHeadRequests(7);
+        assertEquals(7, queue.lastArrivedRequests(4), 0);
+        queue.removeHead();
+        assertEquals(0, queue.lastArrivedRequests(4), 0);
+        assertEquals(40, queue.lastArrivedRequests(5), 0);
+    }
+
+    @Test
+    public void testEmptyQueueHasNoHead() {
+        RequestQueue queue = new RequestQueue();
+        queue.add(1, 1);
+        queue.removeHead();
+        assertTrue(queue.isEmpty());
+        expectedException.expect(IllegalStateException.class);
+        queue.getHeadRequests();
+    }
+
+    @Test
+    public void testServeSplitsTheLastRecord() {
+        RequestQueue queue = new RequestQueue();
+        queue.add(1, 10);
+        queue.add(2, 20);
+        queue.add(3, 30);
+        final List<Double> served = new ArrayList<Double>();
+        final List<Integer> responseTimes = new ArrayList<Integer>();
+        RequestQueue.ServedRequests recorder = new RequestQueue.ServedRequests() {
+            @Override
+            public void served(double numberOfRequests, int responseTime) {
+                served.add(numberOfRequests);
+                responseTimes.add(responseTime);
+            }
+        };
+        assertEquals(35, queue.serve(35, 4, recorder), 0);
+        assertEquals(Arrays.asList(10.0, 20.0, 5.0), served);
+        assertEquals(Arrays.asList(4, 3, 2), responseTimes);
+        assertEquals(1, queue.size());
+        assertEquals(25, queue.getHeadRequests(), 0);
+        assertEquals(25, queue.serve(100, 5, recorder), 0);
+        assertTrue(queue.isEmpty());
+    }
+}
@@ -0,0 +1,63 @@
+package simulator.tests;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import simulator.ResponseTimeHistogram;
+
+public class ResponseTimeHistogramTest {
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    @Test
+    public void testRequestsOverThreshold() {
+        ResponseTimeHistogram histogram = new ResponseTimeHistogram(16);
+        histogram.record(1, 10);
+        histogram.record(3, 5);
+        histogram.record(4, 2.5);
+        histogram.record(40, 1);
+        assertEquals(18.5, histogram.getTotalRequests(), 0);
+        assertEquals(18.5, histogram.requestsOver(0), 0);
+        assertEquals(8.5, histogram.requestsOver(1), 0);
+        assertEquals(3.5, histogram.requestsOver(3), 0);
+        assertEquals(1, histogram.requestsOver(14), 0);
+        // past the buckets only the last one is left
+        assertEquals(1, histogram.requestsOver(100), 0);
+    }
+
+    @Test
+    public void testPercentileIsWeightedByRequests() {
+        ResponseTimeHistogram histogram = new ResponseTimeHistogram(16);
+        assertEquals(-1, histogram.percentile(50));
+        histogram.record(2, 90);
+        histogram.record(7, 10);
+        assertEquals(2, histogram.percentile(50));
+        assertEquals(2, histogram.percentile(90));
+        assertEquals(7, histogram.percentile(95));
+        histogram.record(99, 100);
+        assertEquals(15, histogram.percentile(99));
+    }
+
+    @Test
+    public void testResetStartsAnEmptyEpoch() {
+        ResponseTimeHistogram histogram = new ResponseTimeHistogram(4);
+        histogram.record(-3, 2);
+        histogram.record(2, 3);
+        assertEquals(5, histogram.requestsOver(-1), 0);
+        histogram.reset();
+        assertEquals(0, histogram.getTotalRequests(), 0);
+        assertEquals(0, histogram.requestsOver(-1), 0);
+        histogram.record(1, 4);
+        assertEquals(4, histogram.requestsOver(0), 0);
+    }
+
+    @Test
+    public void testNeedsTwoBuckets() {
+        expectedException.expect(IllegalArgumentException.class);
+        new ResponseTimeHistogram(1);
+    }
+}
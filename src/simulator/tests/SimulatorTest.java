@@ -1,15 +1,28 @@
 package simulator.tests;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.junit.Test;
 
+import simulator.PrefetchingTraceSource;
 import simulator.SimulationResults;
 import simulator.Simulator;
+import simulator.TraceReader;
+import simulator.TraceSource;
+import simulator.physical.BladeServer;
+import simulator.physical.ReadyStateIndex;
+import simulator.system.EnterpriseApp;
+import simulator.system.EnterpriseSystem;
 
 public class SimulatorTest {
 
@@ -36,4 +49,110 @@ public class SimulatorTest {
         }
     }
 
+    @Test
+    public void testNextEventTimeAdvanceMatchesPerTick() {
+        assertNextEventTimeAdvanceMatchesPerTick("configs/DC_Logic.xml");
+    }
+
+    @Test
+    public void testNextEventTimeAdvanceMatchesPerTickWithoutEnterpriseSystems() {
+        assertNextEventTimeAdvanceMatchesPerTick("configs/DC_HPC.xml");
+    }
+
+    @Test
+    public void testNextEventTimeAdvanceMatchesPerTickWithConservativeBackfilling() {
+        assertNextEventTimeAdvanceMatchesPerTick("configs/DC_HPC_Conservative.xml");
+    }
+
+    @Test
+    public void testNextEventTimeAdvanceMatchesPerTickWithALongerThermalPeriod() {
+        assertNextEventTimeAdvanceMatchesPerTick("configs/DC_Logic_Thermal7.xml");
+    }
+
+    @Test
+    public void testDestroyedApplicationsLeaveNoIndexOnTheirServers() {
+        try {
+            Simulator simulator = new Simulator();
+            simulator.initialize("configs/DC_Logic.xml");
+            EnterpriseSystem enterpriseSystem = simulator.getSystems().getEnterpriseSystems().get(0);
+            EnterpriseApp application = enterpriseSystem.getApplications().get(0);
+            ReadyStateIndex bundle = application.getReadyIndex();
+            List<BladeServer> servers = new ArrayList<BladeServer>(application.getComputeNodeList());
+            assertFalse(servers.isEmpty());
+            assertTrue(servers.get(0).isIndexedBy(bundle));
+            application.destroyApplication();
+            assertEquals(0, bundle.size());
+            for (BladeServer server : servers) {
+                assertFalse(server.isIndexedBy(bundle));
+                assertTrue(server.isIndexedBy(enterpriseSystem.getReadyIndex()));
+            }
+        } catch (IOException e) {
+            Logger.getLogger(SimulatorTest.class.getName()).log(Level.SEVERE, "Something went wrong during the test", e);
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testActivatingANodeNeedsAnIdleOne() {
+        Simulator simulator = new Simulator();
+        simulator.initialize("configs/DC_Logic.xml");
+        EnterpriseApp application = simulator.getSystems().getEnterpriseSystems().get(0).getApplications().get(0);
+        assertEquals(0, application.numberofIdleNode());
+        application.activeOneNode();
+    }
+
+    @Test
+    public void testWaitingJobsAreTheLastArrivedRequests() {
+        Simulator simulator = new Simulator();
+        simulator.initialize("configs/DC_Logic.xml");
+        EnterpriseApp application = simulator.getSystems().getEnterpriseSystems().get(0).getApplications().get(0);
+        application.getQueueApp().clear();
+        application.getQueueApp().add(-2, 10);
+        application.getQueueApp().add(-1, 20);
+        application.getQueueApp().add(Integer.MAX_VALUE, 40);
+        // as in the original code; FIXME: the sum, 30, is what is waiting
+        assertEquals(20, application.numberOfWaitingJobs(), 0);
+    }
+
+    @Test
+    public void testClosingTheTracesStopsThePrefetching() throws IOException {
+        Simulator simulator = new Simulator();
+        simulator.initialize("configs/DC_Logic.xml");
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            text.append(i).append('\t').append(i).append('\n');
+        }
+        TraceSource trace = new PrefetchingTraceSource(
+                new TraceReader(new ByteArrayInputStream(text.toString().getBytes(StandardCharsets.UTF_8))), 2, 4);
+        simulator.getSystems().getEnterpriseSystems().get(0).setBis(trace);
+        assertTrue(trace.nextRecord());
+        simulator.getSystems().closeTraces();
+        // only the records already read ahead are left
+        int left = 0;
+        while (trace.nextRecord()) {
+            left++;
+        }
+        assertTrue(left <= 4);
+    }
+
+    private void assertNextEventTimeAdvanceMatchesPerTick(String config) {
+        try {
+            Simulator perTick = new Simulator();
+            perTick.setTimeAdvance(Simulator.TimeAdvanceEnum.PerTick);
+            SimulationResults expected = perTick.execute(config);
+            Simulator nextEvent = new Simulator();
+            nextEvent.setTimeAdvance(Simulator.TimeAdvanceEnum.NextEvent);
+            SimulationResults results = nextEvent.execute(config);
+            assertEquals(0, perTick.getSkippedTicks());
+            assertTrue(nextEvent.getSkippedTicks() > 0);
+            assertEquals(expected.getTotalPowerConsumption(), results.getTotalPowerConsumption(), 1.0);
+            assertEquals(expected.getLocalTime(), results.getLocalTime(), 0.01);
+            assertEquals(expected.getOverRedTemperatureNumber(), results.getOverRedTemperatureNumber());
+            assertEquals(expected.getNumberOfMessagesFromDataCenterToSystem(),
+                    results.getNumberOfMessagesFromDataCenterToSystem());
+            assertEquals(expected.getNumberOfMessagesFromSystemToNodes(),
+                    results.getNumberOfMessagesFromSystemToNodes());
+        } catch (IOException e) {
+            Logger.getLogger(SimulatorTest.class.getName()).log(Level.SEVERE, "Something went wrong during the test", e);
+        }
+    }
 }
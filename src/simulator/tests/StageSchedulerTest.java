@@ -0,0 +1,69 @@
+package simulator.tests;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import simulator.StageScheduler;
+
+public class StageSchedulerTest {
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private final List<String> calls = new ArrayList<String>();
+
+    private StageScheduler.Stage record(final String name) {
+        return new StageScheduler.Stage() {
+            @Override
+            public void run(int time, int ticks) {
+                calls.add(name + "@" + time + "+" + ticks);
+            }
+        };
+    }
+
+    @Test
+    public void testStagesRunAtTheirPeriods() throws IOException {
+        StageScheduler stages = new StageScheduler();
+        stages.register("power", 1, record("power"));
+        stages.register("thermal", 10, record("thermal"));
+        stages.runStep(1, 1);
+        stages.runStep(2, 3);
+        stages.runStep(5, 5);
+        stages.runStep(10, 1);
+        stages.runStep(11, 25);
+        stages.finish(36);
+        assertEquals(10, stages.getPeriod("thermal"));
+        String[] expected = { "power@1+1", "thermal@1+1", "power@2+3", "power@5+5", "power@10+1", "thermal@10+1",
+                "power@11+25", "thermal@11+25", "power@36+0", "thermal@36+0" };
+        assertEquals(expected.length, calls.size());
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], calls.get(i));
+        }
+    }
+
+    @Test
+    public void testStepsEndOnTheTickALongerPeriodIsDue() throws IOException {
+        StageScheduler stages = new StageScheduler();
+        stages.register("power", 1, record("power"));
+        assertEquals(6, stages.nextDueTime(5));
+        stages.runStep(5, 1);
+        assertEquals(Integer.MAX_VALUE, stages.nextDueTime(6));
+        stages.register("thermal", 7, record("thermal"));
+        assertEquals(8, stages.nextDueTime(6));
+        assertEquals(8, stages.nextDueTime(7));
+        assertEquals(15, stages.nextDueTime(8));
+    }
+
+    @Test
+    public void testPeriodHasToBePositive() {
+        expectedException.expect(IllegalArgumentException.class);
+        new StageScheduler().register("thermal", 0, record("thermal"));
+    }
+}
@@ -0,0 +1,107 @@
+package simulator.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import simulator.BinaryTraceReader;
+import simulator.TraceConverter;
+import simulator.TraceReader;
+import simulator.TraceSource;
+import simulator.system.TraceCache;
+
+public class TraceCacheTest {
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private File textLog(String text) throws IOException {
+        File file = File.createTempFile("trace", ".txt");
+        file.deleteOnExit();
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8);
+        writer.write(text);
+        writer.close();
+        return file;
+    }
+
+    @Test
+    public void testCursorReadsLikeTheText() throws IOException {
+        File text = textLog("1 41.07\n\n2\t0.5\n3 12\n");
+        TraceSource cursor = TraceCache.getInstance().open(text, BinaryTraceReader.Kind.JOBS);
+        TraceReader reader = new TraceReader(new FileInputStream(text));
+        while (reader.nextRecord()) {
+            assertTrue(cursor.nextRecord());
+            assertEquals(reader.fieldCount(), cursor.fieldCount());
+            for (int field = 0; field < reader.fieldCount(); field++) {
+                assertEquals(reader.getDouble(field), cursor.getDouble(field), 0);
+            }
+        }
+        assertFalse(cursor.nextRecord());
+        assertEquals(0, cursor.fieldCount());
+        reader.close();
+    }
+
+    @Test
+    public void testCursorsAreIndependent() throws IOException {
+        File text = textLog("1 10\n2 20\n3 30\n");
+        int cached = TraceCache.getInstance().size();
+        TraceSource first = TraceCache.getInstance().open(text, BinaryTraceReader.Kind.JOBS);
+        TraceSource second = TraceCache.getInstance().open(text, BinaryTraceReader.Kind.JOBS);
+        assertEquals(cached + 1, TraceCache.getInstance().size());
+        assertTrue(first.nextRecord());
+        assertTrue(first.nextRecord());
+        assertTrue(second.nextRecord());
+        assertEquals(2, first.getInt(0));
+        assertEquals(1, second.getInt(0));
+        assertEquals(10.0, second.getDouble(1), 0);
+    }
+
+    @Test
+    public void testChangedLogIsReadAgain() throws IOException {
+        File text = textLog("1 10\n");
+        TraceCache.getInstance().open(text, BinaryTraceReader.Kind.JOBS);
+        int cached = TraceCache.getInstance().size();
+        Writer writer = new OutputStreamWriter(new FileOutputStream(text, true), StandardCharsets.UTF_8);
+        writer.write("2 20\n");
+        writer.close();
+        TraceSource cursor = TraceCache.getInstance().open(text, BinaryTraceReader.Kind.JOBS);
+        assertTrue(cursor.nextRecord());
+        assertTrue(cursor.nextRecord());
+        assertEquals(20, cursor.getInt(1));
+        assertEquals(cached, TraceCache.getInstance().size());
+    }
+
+    @Test
+    public void testChangedBinarySiblingIsReadAgain() throws IOException {
+        File text = textLog("1 10\n");
+        File binary = BinaryTraceReader.binarySibling(text);
+        binary.deleteOnExit();
+        TraceCache.getInstance().open(text, BinaryTraceReader.Kind.JOBS);
+        TraceConverter.convert(textLog("1 10\n2 20\n"), binary, BinaryTraceReader.Kind.JOBS);
+        assertTrue(binary.setLastModified(text.lastModified() + 60000));
+        TraceSource cursor = TraceCache.getInstance().open(text, BinaryTraceReader.Kind.JOBS);
+        assertTrue(cursor.nextRecord());
+        assertTrue(cursor.nextRecord());
+        assertEquals(20, cursor.getInt(1));
+    }
+
+    @Test
+    public void testFractionIsNotAnInt() throws IOException {
+        TraceSource cursor = TraceCache.getInstance().open(textLog("1 0.5\n"), BinaryTraceReader.Kind.JOBS);
+        assertTrue(cursor.nextRecord());
+        expectedException.expect(NumberFormatException.class);
+        cursor.getInt(1);
+    }
+}
@@ -0,0 +1,109 @@
+package simulator.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import simulator.TraceReader;
+
+public class TraceReaderTest {
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private TraceReader reader(String text) {
+        return new TraceReader(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testRecordsAndFields() throws IOException {
+        TraceReader trace = reader("1\t1\t41.07\t2\t1\n 7  -2.5 x.txt\r\n\n3 .5");
+        assertTrue(trace.nextRecord());
+        assertEquals(5, trace.fieldCount());
+        assertEquals(1.0, trace.getDouble(0), 0);
+        assertEquals(41.07, trace.getDouble(2), 0);
+        assertEquals(2, trace.getInt(3));
+        assertTrue(trace.nextRecord());
+        assertEquals(3, trace.fieldCount());
+        assertEquals(7, trace.getInt(0));
+        assertEquals(-2.5, trace.getDouble(1), 0);
+        assertEquals("x.txt", trace.getString(2));
+        assertTrue(trace.nextRecord());
+        assertEquals(0, trace.fieldCount());
+        assertTrue(trace.nextRecord());
+        assertEquals(0.5, trace.getDouble(1), 0);
+        assertFalse(trace.nextRecord());
+    }
+
+    @Test
+    public void testDoublesAreReadLikeParseDouble() throws IOException {
+        Random random = new Random(17);
+        StringBuilder text = new StringBuilder();
+        String[] values = new String[3000];
+        for (int i = 0; i < values.length; i++) {
+            switch (i % 4) {
+            case 0:
+                values[i] = Double.toString(random.nextDouble() * 1000);
+                break;
+            case 1:
+                values[i] = String.format(Locale.ROOT, "%.2f", random.nextDouble() * 100);
+                break;
+            case 2:
+                values[i] = Long.toString(random.nextLong());
+                break;
+            default:
+                values[i] = Double.toString(random.nextGaussian() * 1e-9);
+            }
+            text.append(values[i]).append('\n');
+        }
+        TraceReader trace = reader(text.toString());
+        for (String value : values) {
+            assertTrue(trace.nextRecord());
+            assertEquals(Double.doubleToLongBits(Double.parseDouble(value)),
+                    Double.doubleToLongBits(trace.getDouble(0)));
+        }
+    }
+
+    @Test
+    public void testRecordsLongerThanTheBuffer() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 30000; i++) {
+            text.append(i).append(' ');
+        }
+        text.append("\n42\n");
+        final byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+        // hands the bytes out a few at a time
+        InputStream slow = new ByteArrayInputStream(bytes) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 7));
+            }
+        };
+        TraceReader trace = new TraceReader(slow);
+        assertTrue(trace.nextRecord());
+        assertEquals(30000, trace.fieldCount());
+        assertEquals(29999, trace.getInt(29999));
+        assertTrue(trace.nextRecord());
+        assertEquals(42, trace.getInt(0));
+        assertFalse(trace.nextRecord());
+    }
+
+    @Test
+    public void testBadNumber() throws IOException {
+        TraceReader trace = reader("12a\n");
+        trace.nextRecord();
+        expectedException.expect(NumberFormatException.class);
+        trace.getInt(0);
+    }
+}